@@ -0,0 +1,92 @@
+/**
+ * AsciiGridConverter.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import ca.hss.general.AsciiGridReader.Header;
+import ca.hss.general.DecimalUtils.DataType;
+import ca.hss.math.ConversionPlan;
+import ca.hss.math.Convert;
+
+/**
+ * Converts the units of the cells in an Esri ASCII grid (.asc) while streaming it from
+ * one file to another. Only a single row of cells is held in memory so grids of any size
+ * can be converted. NODATA cells are copied unchanged.
+ */
+public class AsciiGridConverter {
+	private final ConversionPlan plan;
+	private final DataType type;
+
+	/**
+	 * @param to_format the format to convert cells to
+	 * @param from_format the format cells are stored in
+	 * @param type the precision to write converted cells with
+	 */
+	public AsciiGridConverter(long to_format, long from_format, DataType type) {
+		this.plan = Convert.plan(to_format, from_format);
+		this.type = type;
+	}
+
+	/**
+	 * Convert a grid from one file into another.
+	 *
+	 * @return the number of rows that were converted
+	 */
+	public int convert(File in, File out) throws IOException {
+		try (InputStream input = new FileInputStream(in);
+				OutputStream output = new FileOutputStream(out)) {
+			return convert(input, output);
+		}
+	}
+
+	/**
+	 * Convert a grid from one stream into another. Neither stream is closed.
+	 *
+	 * @return the number of rows that were converted
+	 */
+	public int convert(InputStream in, OutputStream out) throws IOException {
+		@SuppressWarnings("resource")
+		AsciiGridReader reader = new AsciiGridReader(in);
+		Header header = reader.getHeader();
+		@SuppressWarnings("resource")
+		AsciiGridWriter writer = new AsciiGridWriter(out, header, type);
+		double[] row = new double[header.getColumns()];
+		double[] converted = new double[header.getColumns()];
+		final double noData = header.getNoData();
+		final boolean hasNoData = header.hasNoData();
+		while (reader.readRow(row)) {
+			plan.apply(row, 0, converted, 0, row.length);
+			if (hasNoData) {
+				for (int i = 0; i < row.length; i++) {
+					if (row[i] == noData)
+						converted[i] = noData;
+				}
+			}
+			writer.writeRow(converted);
+		}
+		writer.flush();
+		return reader.getRowsRead();
+	}
+}
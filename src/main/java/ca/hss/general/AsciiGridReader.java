@@ -0,0 +1,347 @@
+/**
+ * AsciiGridReader.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import ca.hss.text.NumberScanner;
+
+/**
+ * Reads an Esri ASCII grid (.asc) one row at a time. The header is parsed when the
+ * reader is created and cell values are parsed directly from a byte buffer, so only the
+ * buffer and the caller's row array are held in memory regardless of the size of the grid.
+ *
+ * Rows are returned in file order, from the top (north) row down.
+ */
+public class AsciiGridReader implements Closeable {
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private final InputStream in;
+	private byte[] buf;
+	private int pos = 0;
+	private int limit = 0;
+	private boolean eof = false;
+	private int tokenStart;
+	private int tokenEnd;
+	private boolean pushedBack = false;
+	private final NumberScanner scanner = new NumberScanner();
+	private final Header header;
+	private int row = 0;
+
+	/**
+	 * Read a grid from a file.
+	 */
+	public AsciiGridReader(File file) throws IOException {
+		this(new FileInputStream(file));
+	}
+
+	/**
+	 * Read a grid from a stream. The stream is closed when the reader is closed.
+	 *
+	 * @throws IOException if the header can't be read
+	 */
+	public AsciiGridReader(InputStream in) throws IOException {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Read a grid from a stream. The stream is closed when the reader is closed.
+	 *
+	 * @param in the stream to read from
+	 * @param bufferSize the initial size of the read buffer, in bytes
+	 * @throws IOException if the header can't be read
+	 */
+	public AsciiGridReader(InputStream in, int bufferSize) throws IOException {
+		if (bufferSize < 16)
+			throw new IllegalArgumentException("bufferSize");
+		this.in = in;
+		this.buf = new byte[bufferSize];
+		this.header = readHeader();
+	}
+
+	public Header getHeader() {
+		return header;
+	}
+
+	/**
+	 * The number of rows that have been read.
+	 */
+	public int getRowsRead() {
+		return row;
+	}
+
+	/**
+	 * Read the next row of cells. NODATA cells are returned as the header's NODATA value.
+	 *
+	 * @param dst the array to store the row in, must have room for at least {@link Header#getColumns()} values
+	 * @return false if every row has already been read
+	 * @throws IOException if the row is incomplete or contains something that isn't a number
+	 */
+	public boolean readRow(double[] dst) throws IOException {
+		if (dst.length < header.columns)
+			throw new IllegalArgumentException("dst");
+		if (row >= header.rows)
+			return false;
+		for (int i = 0; i < header.columns; i++)
+			dst[i] = nextValue();
+		row++;
+		return true;
+	}
+
+	/**
+	 * Read the next row of cells in single precision.
+	 *
+	 * @param dst the array to store the row in, must have room for at least {@link Header#getColumns()} values
+	 * @return false if every row has already been read
+	 * @throws IOException if the row is incomplete or contains something that isn't a number
+	 */
+	public boolean readRow(float[] dst) throws IOException {
+		if (dst.length < header.columns)
+			throw new IllegalArgumentException("dst");
+		if (row >= header.rows)
+			return false;
+		for (int i = 0; i < header.columns; i++)
+			dst[i] = (float)nextValue();
+		row++;
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private Header readHeader() throws IOException {
+		int columns = -1, rows = -1;
+		double x = Double.NaN, y = Double.NaN, cellSize = Double.NaN, noData = Double.NaN;
+		boolean xCenter = false, yCenter = false;
+		while (nextToken()) {
+			if (parseToken()) {
+				//the first cell value, including NaN, the header is done
+				pushedBack = true;
+				break;
+			}
+			String key = new String(buf, tokenStart, tokenEnd - tokenStart, StandardCharsets.ISO_8859_1).toLowerCase();
+			if (!nextToken() || !parseToken())
+				throw new IOException("Missing value for " + key + " in the grid header.");
+			switch (key) {
+			case "ncols":
+				columns = headerCount(key);
+				break;
+			case "nrows":
+				rows = headerCount(key);
+				break;
+			case "xllcorner":
+				x = scanner.getDouble();
+				break;
+			case "xllcenter":
+				x = scanner.getDouble();
+				xCenter = true;
+				break;
+			case "yllcorner":
+				y = scanner.getDouble();
+				break;
+			case "yllcenter":
+				y = scanner.getDouble();
+				yCenter = true;
+				break;
+			case "cellsize":
+				cellSize = scanner.getDouble();
+				break;
+			case "nodata_value":
+				noData = scanner.getDouble();
+				break;
+			default:
+				//unknown keys, ie. dx/dy, are ignored
+				break;
+			}
+		}
+		if (columns <= 0 || rows < 0)
+			throw new IOException("The grid header is missing ncols or nrows.");
+		if (xCenter != yCenter)
+			throw new IOException("The grid header mixes cell center and cell corner coordinates.");
+		return new Header(columns, rows, x, y, xCenter, cellSize, noData);
+	}
+
+	/**
+	 * The value of the current header token as a number of rows or columns.
+	 */
+	private int headerCount(String key) throws IOException {
+		double value = scanner.getDouble();
+		if (value != java.lang.Math.rint(value) || value < 0 || value > Integer.MAX_VALUE)
+			throw new IOException("Invalid " + key + " in the grid header: " + value);
+		return (int)value;
+	}
+
+	private double nextValue() throws IOException {
+		if (!nextToken())
+			throw new IOException("The grid ended after " + row + " of " + header.rows + " rows.");
+		if (!parseToken())
+			throw new IOException("Invalid cell value '" + new String(buf, tokenStart, tokenEnd - tokenStart, StandardCharsets.ISO_8859_1) +
+					"' in row " + (row + 1) + ".");
+		return scanner.getDouble();
+	}
+
+	/**
+	 * Parse the current token, which has to be a single number.
+	 */
+	private boolean parseToken() {
+		return scanner.parseDouble(buf, tokenStart, tokenEnd, '.') == tokenEnd - tokenStart;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+	}
+
+	/**
+	 * Find the next whitespace separated token, refilling the buffer as needed.
+	 *
+	 * @return false at the end of the stream
+	 */
+	private boolean nextToken() throws IOException {
+		if (pushedBack) {
+			pushedBack = false;
+			return true;
+		}
+		while (true) {
+			while (pos < limit && isWhitespace(buf[pos]))
+				pos++;
+			if (pos < limit)
+				break;
+			if (eof || !fill(pos))
+				return false;
+		}
+		int start = pos;
+		while (true) {
+			while (pos < limit && !isWhitespace(buf[pos]))
+				pos++;
+			if (pos < limit || eof)
+				break;
+			//the token runs past the end of the buffer, keep it and read more
+			boolean more = fill(start);
+			start = 0;
+			if (!more)
+				break;
+		}
+		tokenStart = start;
+		tokenEnd = pos;
+		return true;
+	}
+
+	/**
+	 * Discard everything before <code>keep</code> and read more bytes.
+	 *
+	 * @return false if the end of the stream was reached without reading anything
+	 */
+	private boolean fill(int keep) throws IOException {
+		int remaining = limit - keep;
+		if (keep > 0)
+			System.arraycopy(buf, keep, buf, 0, remaining);
+		else if (remaining == buf.length)
+			buf = Arrays.copyOf(buf, buf.length * 2);
+		pos -= keep;
+		limit = remaining;
+		int read = in.read(buf, limit, buf.length - limit);
+		while (read == 0)
+			read = in.read(buf, limit, buf.length - limit);
+		if (read < 0) {
+			eof = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+
+	/**
+	 * The header of an ASCII grid.
+	 */
+	public static class Header {
+		private final int columns;
+		private final int rows;
+		private final double x;
+		private final double y;
+		private final boolean center;
+		private final double cellSize;
+		private final double noData;
+
+		/**
+		 * @param columns the number of columns
+		 * @param rows the number of rows
+		 * @param x the x coordinate of the lower left cell
+		 * @param y the y coordinate of the lower left cell
+		 * @param center are the coordinates the center of the lower left cell instead of its corner
+		 * @param cellSize the width and height of a cell
+		 * @param noData the value of cells that have no data, or NaN if the grid doesn't have one
+		 */
+		public Header(int columns, int rows, double x, double y, boolean center, double cellSize, double noData) {
+			this.columns = columns;
+			this.rows = rows;
+			this.x = x;
+			this.y = y;
+			this.center = center;
+			this.cellSize = cellSize;
+			this.noData = noData;
+		}
+
+		public int getColumns() {
+			return columns;
+		}
+
+		public int getRows() {
+			return rows;
+		}
+
+		public double getX() {
+			return x;
+		}
+
+		public double getY() {
+			return y;
+		}
+
+		/**
+		 * Are {@link #getX()} and {@link #getY()} the center of the lower left cell
+		 * (<code>xllcenter</code>) instead of its corner (<code>xllcorner</code>).
+		 */
+		public boolean isCenter() {
+			return center;
+		}
+
+		public double getCellSize() {
+			return cellSize;
+		}
+
+		/**
+		 * The value of cells that have no data, or NaN if the header doesn't have one.
+		 */
+		public double getNoData() {
+			return noData;
+		}
+
+		public boolean hasNoData() {
+			return !Double.isNaN(noData);
+		}
+	}
+}
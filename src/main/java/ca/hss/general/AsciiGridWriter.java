@@ -0,0 +1,216 @@
+/**
+ * AsciiGridWriter.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import ca.hss.general.AsciiGridReader.Header;
+import ca.hss.general.DecimalUtils.DataType;
+import ca.hss.general.DecimalUtils.Rounding;
+
+/**
+ * Writes an Esri ASCII grid (.asc) one row at a time. Cell values are rounded to the
+ * precision of a {@link DataType} by {@link DecimalUtils#formatNumber(double, DataType)} and
+ * written without a locale, the same as passing the rounded value to
+ * {@link DecimalUtils#formatLocaleless(Double, DataType)}, straight into a byte buffer.
+ *
+ * Cells equal to the header's NODATA value, or NaN, are written as NODATA. Without a NODATA
+ * value NaN cells are written as <code>NaN</code>, which {@link AsciiGridReader} reads back but
+ * other readers may not. A cell is compared to NODATA before it is rounded, so a value that
+ * only rounds to NODATA, ie. -9999.004 with two decimal places, is written as a number that
+ * reads back as NODATA.
+ */
+public class AsciiGridWriter implements Closeable, Flushable {
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private final OutputStream out;
+	private final Header header;
+	private final DataType type;
+	private final byte[] buf;
+	private int pos = 0;
+	private final char[] number = new char[DecimalUtils.MAX_FORMAT_LENGTH];
+	private final String noData;
+	private int row = 0;
+
+	/**
+	 * Write a grid to a file.
+	 *
+	 * @param file the file to write
+	 * @param header the header to write
+	 * @param type the precision to write cell values with
+	 */
+	public AsciiGridWriter(File file, Header header, DataType type) throws IOException {
+		this(new FileOutputStream(file), header, type);
+	}
+
+	/**
+	 * Write a grid to a stream. The stream is closed when the writer is closed.
+	 *
+	 * @param out the stream to write to
+	 * @param header the header to write
+	 * @param type the precision to write cell values with
+	 */
+	public AsciiGridWriter(OutputStream out, Header header, DataType type) throws IOException {
+		this.out = out;
+		this.header = header;
+		this.type = type;
+		this.buf = new byte[java.lang.Math.max(DEFAULT_BUFFER_SIZE, DecimalUtils.MAX_FORMAT_LENGTH + 1)];
+		this.noData = header.hasNoData() ? number(header.getNoData()) : "NaN";
+		writeHeader();
+	}
+
+	public Header getHeader() {
+		return header;
+	}
+
+	/**
+	 * The number of rows that have been written.
+	 */
+	public int getRowsWritten() {
+		return row;
+	}
+
+	/**
+	 * Write the next row of cells. Cells that are NaN or exactly the NODATA value are
+	 * written as NODATA.
+	 *
+	 * @param values the cells, the first {@link Header#getColumns()} values are written
+	 * @throws IllegalStateException if every row has already been written
+	 */
+	public void writeRow(double[] values) throws IOException {
+		if (values.length < header.getColumns())
+			throw new IllegalArgumentException("values");
+		checkRow();
+		final double nd = header.getNoData();
+		for (int i = 0; i < header.getColumns(); i++) {
+			double value = values[i];
+			if (i > 0)
+				write(' ');
+			if (value == nd || Double.isNaN(value))
+				write(noData);
+			else
+				writeValue(value);
+		}
+		write('\n');
+		row++;
+	}
+
+	/**
+	 * Write the next row of cells from single precision values. Cells that are NaN or the
+	 * NODATA value rounded to single precision are written as NODATA.
+	 *
+	 * @param values the cells, the first {@link Header#getColumns()} values are written
+	 * @throws IllegalStateException if every row has already been written
+	 */
+	public void writeRow(float[] values) throws IOException {
+		if (values.length < header.getColumns())
+			throw new IllegalArgumentException("values");
+		checkRow();
+		final float nd = (float)header.getNoData();
+		for (int i = 0; i < header.getColumns(); i++) {
+			float value = values[i];
+			if (i > 0)
+				write(' ');
+			if (value == nd || Float.isNaN(value))
+				write(noData);
+			else
+				writeValue(value);
+		}
+		write('\n');
+		row++;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (pos > 0) {
+			out.write(buf, 0, pos);
+			pos = 0;
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private void checkRow() {
+		if (row >= header.getRows())
+			throw new IllegalStateException("All " + header.getRows() + " rows have been written.");
+	}
+
+	private void writeHeader() throws IOException {
+		write("ncols         " + header.getColumns() + "\n");
+		write("nrows         " + header.getRows() + "\n");
+		if (header.isCenter()) {
+			write("xllcenter     " + number(header.getX()) + "\n");
+			write("yllcenter     " + number(header.getY()) + "\n");
+		}
+		else {
+			write("xllcorner     " + number(header.getX()) + "\n");
+			write("yllcorner     " + number(header.getY()) + "\n");
+		}
+		write("cellsize      " + number(header.getCellSize()) + "\n");
+		if (header.hasNoData())
+			write("NODATA_value  " + noData + "\n");
+	}
+
+	/**
+	 * Format a header value without a trailing .0 on whole numbers.
+	 */
+	private static String number(double value) {
+		if (value == java.lang.Math.rint(value) && java.lang.Math.abs(value) < 1e15)
+			return Long.toString((long)value);
+		return Double.toString(value);
+	}
+
+	private void writeValue(double value) throws IOException {
+		if (buf.length - pos < DecimalUtils.MAX_FORMAT_LENGTH)
+			flushBuffer();
+		int len = DecimalUtils.format(number, 0, value, type, Rounding.NUMBER, '.', '0');
+		for (int i = 0; i < len; i++)
+			buf[pos++] = (byte)number[i];
+	}
+
+	private void write(String s) throws IOException {
+		for (int i = 0; i < s.length(); i++)
+			write(s.charAt(i));
+	}
+
+	private void write(char c) throws IOException {
+		if (pos == buf.length)
+			flushBuffer();
+		buf[pos++] = (byte)c;
+	}
+
+	private void flushBuffer() throws IOException {
+		out.write(buf, 0, pos);
+		pos = 0;
+	}
+}
@@ -0,0 +1,270 @@
+/**
+ * ColumnFileReader.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.hss.general.DecimalUtils.DataType;
+import ca.hss.math.ConversionPlan;
+import ca.hss.math.Convert;
+import ca.hss.math.ConvertedDoubleView;
+
+/**
+ * Reads a file written by {@link ColumnFileWriter}. Each column is memory mapped when it
+ * is first used and its values are read in place, so opening a file only reads the
+ * directory. Columns can be read in the format they are stored in without copying, or
+ * through a view that converts values to another format as they are read.
+ *
+ * Readers are not synchronized. The buffers they return are read-only.
+ */
+public class ColumnFileReader implements Closeable {
+	private final FileChannel channel;
+	private final Map<String, Column> columns = new LinkedHashMap<>();
+
+	/**
+	 * Open a file and read its directory.
+	 *
+	 * @throws IOException if the file can't be read, isn't a column file or has two columns with the same name
+	 */
+	public ColumnFileReader(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			readDirectory();
+		}
+		catch (IOException|RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * The names of the columns in the order they were written.
+	 */
+	public List<String> getColumnNames() {
+		return Collections.unmodifiableList(new ArrayList<>(columns.keySet()));
+	}
+
+	/**
+	 * Get the description of a column.
+	 *
+	 * @param name the name of the column
+	 * @return the column, or <code>null</code> if the file doesn't contain it
+	 */
+	public Column getColumn(String name) {
+		return columns.get(name);
+	}
+
+	/**
+	 * Get the values of a column of doubles in the format they are stored in. The buffer
+	 * reads the mapped file directly.
+	 *
+	 * @throws IllegalArgumentException if the column doesn't exist or holds floats
+	 */
+	public DoubleBuffer getDoubles(String name) throws IOException {
+		Column c = find(name);
+		if (c.isFloat())
+			throw new IllegalArgumentException(name + " is a column of floats.");
+		return c.map().asDoubleBuffer();
+	}
+
+	/**
+	 * Get the values of a column of floats in the format they are stored in. The buffer
+	 * reads the mapped file directly.
+	 *
+	 * @throws IllegalArgumentException if the column doesn't exist or holds doubles
+	 */
+	public FloatBuffer getFloats(String name) throws IOException {
+		Column c = find(name);
+		if (!c.isFloat())
+			throw new IllegalArgumentException(name + " is a column of doubles.");
+		return c.map().asFloatBuffer();
+	}
+
+	/**
+	 * Get a view of a column that converts its values to another format as they are read.
+	 * Nothing is copied, and when the column is already in the requested format values are
+	 * returned unchanged.
+	 *
+	 * @param name the name of the column
+	 * @param to_format the format to read values in
+	 */
+	public ConvertedDoubleView getView(String name, long to_format) throws IOException {
+		Column c = find(name);
+		if (c.isFloat())
+			return ConvertedDoubleView.of(c.map().asFloatBuffer(), to_format, c.format);
+		return ConvertedDoubleView.of(c.map().asDoubleBuffer(), to_format, c.format);
+	}
+
+	/**
+	 * Read a column into a new array, converting it to another format.
+	 *
+	 * @param name the name of the column
+	 * @param to_format the format to read values in
+	 */
+	public double[] read(String name, long to_format) throws IOException {
+		Column c = find(name);
+		double[] retval = new double[c.length];
+		ConversionPlan plan = Convert.plan(to_format, c.format);
+		if (c.isFloat()) {
+			FloatBuffer values = c.map().asFloatBuffer();
+			for (int i = 0; i < retval.length; i++)
+				retval[i] = plan.apply(values.get(i));
+		}
+		else {
+			c.map().asDoubleBuffer().get(retval);
+			plan.apply(retval);
+		}
+		return retval;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private Column find(String name) {
+		Column c = columns.get(name);
+		if (c == null)
+			throw new IllegalArgumentException("No column named " + name + ".");
+		return c;
+	}
+
+	private void readDirectory() throws IOException {
+		ByteBuffer fixed = readAt(0, 12);
+		if (fixed.getInt() != ColumnFileWriter.MAGIC)
+			throw new IOException("Not a column file.");
+		int version = fixed.getInt();
+		if (version != ColumnFileWriter.VERSION)
+			throw new IOException("Unsupported column file version " + version + ".");
+		int count = fixed.getInt();
+		long position = 12;
+		for (int i = 0; i < count; i++) {
+			String name = readString(position);
+			position += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+			String type = readString(position);
+			position += 2 + type.getBytes(StandardCharsets.UTF_8).length;
+			ByteBuffer entry = readAt(position, 26);
+			position += 26;
+			byte storage = entry.get();
+			entry.get();
+			long format = entry.getLong();
+			long length = entry.getLong();
+			long offset = entry.getLong();
+			long bytes = length * (storage == ColumnFileWriter.FLOAT ? 4 : 8);
+			if (length < 0 || length > Integer.MAX_VALUE || bytes > Integer.MAX_VALUE || offset < 0 || offset + bytes > channel.size())
+				throw new IOException("The directory entry for " + name + " is invalid.");
+			DataType dataType;
+			try {
+				dataType = DataType.valueOf(type);
+			}
+			catch (IllegalArgumentException e) {
+				dataType = DataType.UNKNOWN;
+			}
+			if (columns.put(name, new Column(name, storage == ColumnFileWriter.FLOAT, dataType, format, (int)length, offset)) != null)
+				throw new IOException("The column file has more than one column named " + name + ".");
+		}
+	}
+
+	private String readString(long position) throws IOException {
+		int length = readAt(position, 2).getShort() & 0xffff;
+		ByteBuffer bytes = readAt(position + 2, length);
+		return new String(bytes.array(), 0, length, StandardCharsets.UTF_8);
+	}
+
+	private ByteBuffer readAt(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				throw new IOException("Unexpected end of column file.");
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * The description of a column in a file.
+	 */
+	public class Column {
+		private final String name;
+		private final boolean isFloat;
+		private final DataType type;
+		private final long format;
+		private final int length;
+		private final long offset;
+		private ByteBuffer mapped;
+
+		Column(String name, boolean isFloat, DataType type, long format, int length, long offset) {
+			this.name = name;
+			this.isFloat = isFloat;
+			this.type = type;
+			this.format = format;
+			this.length = length;
+			this.offset = offset;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Are the values stored as floats instead of doubles.
+		 */
+		public boolean isFloat() {
+			return isFloat;
+		}
+
+		public DataType getDataType() {
+			return type;
+		}
+
+		/**
+		 * The format the values are stored in.
+		 */
+		public long getFormat() {
+			return format;
+		}
+
+		/**
+		 * The number of values in the column.
+		 */
+		public int size() {
+			return length;
+		}
+
+		private ByteBuffer map() throws IOException {
+			if (mapped == null)
+				mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long)length * (isFloat ? 4 : 8)).order(ByteOrder.LITTLE_ENDIAN);
+			return mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * ColumnFileWriter.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ca.hss.general.DecimalUtils.DataType;
+
+/**
+ * Writes columns of unit-tagged values to a compact binary file that can be read with
+ * {@link ColumnFileReader}.
+ *
+ * The file is little endian. It starts with the magic bytes <code>HSSC</code>, a version
+ * and the number of columns, followed by a directory with, for each column, its name,
+ * whether it holds doubles or floats, its {@link DataType}, its {@link ca.hss.math.Convert.STORAGE_FORMAT},
+ * the number of values and the offset of the values in the file. Column values are stored
+ * contiguously and aligned to 8 bytes so they can be memory mapped and read in place.
+ */
+public class ColumnFileWriter {
+	static final int MAGIC = 0x43535348;
+	static final int VERSION = 1;
+	static final byte DOUBLE = 0;
+	static final byte FLOAT = 1;
+
+	private final List<Entry> columns = new ArrayList<>();
+	private final Set<String> names = new HashSet<>();
+
+	/**
+	 * Add a column of doubles. The array isn't copied, it is read when the file is written.
+	 *
+	 * @param name the name of the column, must be unique
+	 * @param values the values
+	 * @param format the format the values are stored in
+	 * @param type the type of data in the column
+	 * @throws IllegalArgumentException if a column with the same name has already been added
+	 */
+	public ColumnFileWriter addColumn(String name, double[] values, long format, DataType type) {
+		return add(name, new Entry(name, values, null, format, type));
+	}
+
+	/**
+	 * Add a column of floats. The array isn't copied, it is read when the file is written.
+	 *
+	 * @param name the name of the column, must be unique
+	 * @param values the values
+	 * @param format the format the values are stored in
+	 * @param type the type of data in the column
+	 * @throws IllegalArgumentException if a column with the same name has already been added
+	 */
+	public ColumnFileWriter addColumn(String name, float[] values, long format, DataType type) {
+		return add(name, new Entry(name, null, values, format, type));
+	}
+
+	/**
+	 * Write every column to a file, replacing it if it exists.
+	 */
+	public void write(File file) throws IOException {
+		int headerSize = 12;
+		for (Entry e : columns)
+			headerSize += 2 + e.name.length + 2 + e.type.length + 2 + 8 + 8 + 8;
+		long offset = align(headerSize);
+		ByteBuffer header = ByteBuffer.allocate((int)offset).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(columns.size());
+		for (Entry e : columns) {
+			header.putShort((short)e.name.length);
+			header.put(e.name);
+			header.putShort((short)e.type.length);
+			header.put(e.type);
+			header.put(e.doubles != null ? DOUBLE : FLOAT);
+			header.put((byte)0);
+			header.putLong(e.format);
+			header.putLong(e.length());
+			header.putLong(offset);
+			offset = align(offset + e.length() * (e.doubles != null ? 8L : 4L));
+		}
+		header.rewind();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, header);
+			ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer padding = ByteBuffer.allocate(8);
+			for (Entry e : columns) {
+				int written = 0;
+				int length = e.length();
+				while (written < length) {
+					chunk.clear();
+					int count;
+					if (e.doubles != null) {
+						count = java.lang.Math.min(length - written, chunk.capacity() / 8);
+						chunk.asDoubleBuffer().put(e.doubles, written, count);
+						chunk.limit(count * 8);
+					}
+					else {
+						count = java.lang.Math.min(length - written, chunk.capacity() / 4);
+						chunk.asFloatBuffer().put(e.floats, written, count);
+						chunk.limit(count * 4);
+					}
+					writeFully(channel, chunk);
+					written += count;
+				}
+				long position = channel.position();
+				padding.clear().limit((int)(align(position) - position));
+				writeFully(channel, padding);
+			}
+		}
+	}
+
+	private ColumnFileWriter add(String name, Entry entry) {
+		if (!names.add(name))
+			throw new IllegalArgumentException("There is already a column named " + name + ".");
+		columns.add(entry);
+		return this;
+	}
+
+	static long align(long offset) {
+		return (offset + 7) & ~7L;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	private static class Entry {
+		final byte[] name;
+		final double[] doubles;
+		final float[] floats;
+		final long format;
+		final byte[] type;
+
+		Entry(String name, double[] doubles, float[] floats, long format, DataType type) {
+			this.name = name.getBytes(StandardCharsets.UTF_8);
+			if (this.name.length > Short.MAX_VALUE)
+				throw new IllegalArgumentException("name");
+			this.doubles = doubles;
+			this.floats = floats;
+			this.format = format;
+			this.type = (type == null ? DataType.UNKNOWN : type).name().getBytes(StandardCharsets.UTF_8);
+		}
+
+		int length() {
+			return doubles != null ? doubles.length : floats.length;
+		}
+	}
+}
@@ -19,10 +19,16 @@
 
 package ca.hss.general;
 
+import java.io.IOException;
+import java.nio.CharBuffer;
 import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.Locale;
 
+import ca.hss.text.NumberScanner;
+
 /**
  * A helper class for double precision values.
  * 
@@ -30,12 +36,35 @@ import java.util.Locale;
  *
  */
 public class DecimalUtils {
-	private static Locale _loc = Locale.getDefault();
+	private static volatile Symbols _symbols = new Symbols(Locale.getDefault());
+	private static final long[] POW10 = { 1L, 10L, 100L };
+	private static final String[] FIXED_PATTERNS = { "%.0f", "%.1f", "%.2f" };
+	/**
+	 * Values at or above this can have more than one candidate for rounding and are
+	 * formatted by {@link String#format(Locale, String, Object...)} instead.
+	 */
+	private static final double FIXED_LIMIT = 0x1p42;
+	/**
+	 * Values at or above this are already whole numbers at two decimal places and would
+	 * overflow the long {@link #formatNumber(double, DataType)} rounds through, so they
+	 * are left as they are.
+	 */
+	private static final double ROUND_LIMIT = 0x1p52;
+
+	/**
+	 * The most characters {@link #format(char[], int, double, DataType, Rounding, char, char)}
+	 * will write for a single value.
+	 */
+	public static final int MAX_FORMAT_LENGTH = 320;
+
+	private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[MAX_FORMAT_LENGTH]);
+	private static final String[] PATTERNS = { "0", "0.0", "0.00", "0.##" };
+	private static final ThreadLocal<FormatCache> FORMATS = ThreadLocal.withInitial(FormatCache::new);
 
 	private DecimalUtils() { }
 
 	public static void setLocale(Locale loc) {
-		_loc = loc;
+		_symbols = new Symbols(loc);
 	}
 	
 	/**
@@ -46,12 +75,12 @@ public class DecimalUtils {
 	 * @return the floating point value or <code>null</code> if one couldn't be found.
 	 */
 	public static Double valueOf(String value) {
-		Double retval = null;
-		try {
-			retval = Double.valueOf(value);
-		}
-		catch (NumberFormatException ex) { }
-		return retval;
+		if (value == null)
+			return null;
+		NumberScanner scanner = new NumberScanner();
+		if (scanner.scanDouble(value))
+			return scanner.getDouble();
+		return null;
 	}
 
 	/**
@@ -61,22 +90,7 @@ public class DecimalUtils {
 	 * @return a formatter for the specified data type
 	 */
 	public static DecimalFormat getFormat(DataType type) {
-		DecimalFormat format = (DecimalFormat)NumberFormat.getNumberInstance(_loc);
-		switch (type.getNumDecimals()) {
-		case 0:
-			format.applyPattern("0");
-			break;
-		case 1:
-			format.applyPattern("0.0");
-			break;
-		case -2:
-			format.applyPattern("0.##");
-			break;
-		default:
-			format.applyPattern("0.00");
-			break;
-		}
-		return format;
+		return (DecimalFormat)getCachedFormat(type).clone();
 	}
 
 	/**
@@ -87,22 +101,70 @@ public class DecimalUtils {
 	 * @return a formatter for the specified data type without a locale
 	 */
 	public static DecimalFormat getFormatLocaleless(DataType type) {
-		DecimalFormat format = (DecimalFormat)NumberFormat.getNumberInstance(Locale.ENGLISH);
+		return (DecimalFormat)getCachedFormatLocaleless(type).clone();
+	}
+
+	/**
+	 * Get the calling thread's decimal formatter for the type of data specified. Each
+	 * thread has its own formatters so they can be used without synchronization, and
+	 * they are recreated the first time they are used after the locale changes. The
+	 * formatter must not be modified or handed to another thread, use
+	 * {@link #getFormat(DataType)} for a formatter that can be.
+	 * 
+	 * @param type the type of data to get a formatter for
+	 * @return a formatter for the specified data type
+	 */
+	public static DecimalFormat getCachedFormat(DataType type) {
+		FormatCache cache = FORMATS.get();
+		Symbols symbols = _symbols;
+		if (cache.symbols != symbols) {
+			cache.symbols = symbols;
+			Arrays.fill(cache.local, null);
+		}
+		int index = patternIndex(type);
+		DecimalFormat format = cache.local[index];
+		if (format == null) {
+			format = createFormat(symbols.locale, index);
+			cache.local[index] = format;
+		}
+		return format;
+	}
+
+	/**
+	 * Get the calling thread's decimal formatter for the type of data specified without
+	 * the locale applied. The formatter must not be modified or handed to another thread.
+	 * 
+	 * @param type the type of data to get a formatter for
+	 * @return a formatter for the specified data type without a locale
+	 */
+	public static DecimalFormat getCachedFormatLocaleless(DataType type) {
+		FormatCache cache = FORMATS.get();
+		int index = patternIndex(type);
+		DecimalFormat format = cache.localeless[index];
+		if (format == null) {
+			format = createFormat(Locale.ENGLISH, index);
+			cache.localeless[index] = format;
+		}
+		return format;
+	}
+
+	private static DecimalFormat createFormat(Locale loc, int index) {
+		DecimalFormat format = (DecimalFormat)NumberFormat.getNumberInstance(loc);
+		format.applyPattern(PATTERNS[index]);
+		return format;
+	}
+
+	private static int patternIndex(DataType type) {
 		switch (type.getNumDecimals()) {
 		case 0:
-			format.applyPattern("0");
-			break;
+			return 0;
 		case 1:
-			format.applyPattern("0.0");
-			break;
+			return 1;
 		case -2:
-			format.applyPattern("0.##");
-			break;
+			return 3;
 		default:
-			format.applyPattern("0.00");
-			break;
+			return 2;
 		}
-		return format;
 	}
 
 	/**
@@ -125,21 +187,9 @@ public class DecimalUtils {
 	public static String format(Double value, DataType type) {
 		if (value == null)
 			value = 0.0;
-		switch (type.getNumDecimals()) {
-		case -2:
-			String s = String.format(_loc, "%.2f", value);
-			while (s.charAt(s.length() - 1) == '0')
-				s = s.substring(0, s.length() - 1);
-			if (s.charAt(s.length() - 1) == ',' || s.charAt(s.length() - 1) == '.')
-				s = s.substring(0, s.length() - 1);
-			return s;
-		case 0:
-			return String.format(_loc, "%.0f", value);
-		case 1:
-			return String.format(_loc, "%.1f", value);
-		default:
-			return String.format(_loc, "%.2f", value);
-		}
+		char[] buf = SCRATCH.get();
+		Symbols symbols = _symbols;
+		return new String(buf, 0, format(buf, 0, value, type, Rounding.FORMAT, symbols.decimalSeparator, symbols.zeroDigit));
 	}
 
 	/**
@@ -164,21 +214,197 @@ public class DecimalUtils {
 	public static String formatLocaleless(Double value, DataType type) {
 		if (value == null)
 			value = 0.0;
-		switch (type.getNumDecimals()) {
-		case -2:
-			String s = String.format(Locale.ENGLISH, "%.2f", value);
-			while (s.charAt(s.length() - 1) == '0')
-				s = s.substring(0, s.length() - 1);
-			if (s.charAt(s.length() - 1) == ',' || s.charAt(s.length() - 1) == '.')
-				s = s.substring(0, s.length() - 1);
-			return s;
-		case 0:
-			return String.format(Locale.ENGLISH, "%.0f", value);
-		case 1:
-			return String.format(Locale.ENGLISH, "%.1f", value);
-		default:
-			return String.format(Locale.ENGLISH, "%.2f", value);
+		char[] buf = SCRATCH.get();
+		return new String(buf, 0, format(buf, 0, value, type, Rounding.FORMAT, '.', '0'));
+	}
+
+	/**
+	 * Append a value formatted the same as {@link #format(Double, DataType)} without
+	 * creating any strings.
+	 * 
+	 * @param out the builder to append to
+	 * @param value the value to format
+	 * @param type the data type to format as
+	 * @return <code>out</code>
+	 */
+	public static StringBuilder format(StringBuilder out, double value, DataType type) {
+		char[] buf = SCRATCH.get();
+		Symbols symbols = _symbols;
+		return out.append(buf, 0, format(buf, 0, value, type, Rounding.FORMAT, symbols.decimalSeparator, symbols.zeroDigit));
+	}
+
+	/**
+	 * Append a value formatted the same as {@link #formatLocaleless(Double, DataType)}
+	 * without creating any strings.
+	 * 
+	 * @param out the builder to append to
+	 * @param value the value to format
+	 * @param type the data type to format as
+	 * @return <code>out</code>
+	 */
+	public static StringBuilder formatLocaleless(StringBuilder out, double value, DataType type) {
+		char[] buf = SCRATCH.get();
+		return out.append(buf, 0, format(buf, 0, value, type, Rounding.FORMAT, '.', '0'));
+	}
+
+	/**
+	 * Write a value formatted the same as {@link #format(Double, DataType)} to a buffer
+	 * without creating any strings.
+	 * 
+	 * @param out the buffer to write to
+	 * @param value the value to format
+	 * @param type the data type to format as
+	 * @return <code>out</code>
+	 * @throws java.nio.BufferOverflowException if the buffer doesn't have room for the value
+	 */
+	public static CharBuffer format(CharBuffer out, double value, DataType type) {
+		char[] buf = SCRATCH.get();
+		Symbols symbols = _symbols;
+		return out.put(buf, 0, format(buf, 0, value, type, Rounding.FORMAT, symbols.decimalSeparator, symbols.zeroDigit));
+	}
+
+	/**
+	 * Write a value formatted the same as {@link #formatLocaleless(Double, DataType)} to
+	 * a buffer without creating any strings.
+	 * 
+	 * @param out the buffer to write to
+	 * @param value the value to format
+	 * @param type the data type to format as
+	 * @return <code>out</code>
+	 * @throws java.nio.BufferOverflowException if the buffer doesn't have room for the value
+	 */
+	public static CharBuffer formatLocaleless(CharBuffer out, double value, DataType type) {
+		char[] buf = SCRATCH.get();
+		return out.put(buf, 0, format(buf, 0, value, type, Rounding.FORMAT, '.', '0'));
+	}
+
+	/**
+	 * Append a value formatted the same as {@link #format(Double, DataType)} without
+	 * creating any strings.
+	 * 
+	 * @param out the destination to append to, ie. a <code>Writer</code>
+	 * @param value the value to format
+	 * @param type the data type to format as
+	 * @return <code>out</code>
+	 */
+	public static Appendable format(Appendable out, double value, DataType type) throws IOException {
+		char[] buf = SCRATCH.get();
+		Symbols symbols = _symbols;
+		int len = format(buf, 0, value, type, Rounding.FORMAT, symbols.decimalSeparator, symbols.zeroDigit);
+		for (int i = 0; i < len; i++)
+			out.append(buf[i]);
+		return out;
+	}
+
+	/**
+	 * Append a value formatted the same as {@link #formatLocaleless(Double, DataType)}
+	 * without creating any strings.
+	 * 
+	 * @param out the destination to append to, ie. a <code>Writer</code>
+	 * @param value the value to format
+	 * @param type the data type to format as
+	 * @return <code>out</code>
+	 */
+	public static Appendable formatLocaleless(Appendable out, double value, DataType type) throws IOException {
+		char[] buf = SCRATCH.get();
+		int len = format(buf, 0, value, type, Rounding.FORMAT, '.', '0');
+		for (int i = 0; i < len; i++)
+			out.append(buf[i]);
+		return out;
+	}
+
+	/**
+	 * Format a value into a character array without allocating, with the number of decimal
+	 * places of the data type and trailing zeros removed for {@link DataType#FORCE_ATMOST_2}.
+	 * No grouping separators are written. With {@link Rounding#FORMAT} and the symbols of a
+	 * locale the output is the same as <code>String.format(locale, "%.2f", value)</code>.
+	 * 
+	 * @param dst the array to write to, must have at least {@link #MAX_FORMAT_LENGTH} characters available
+	 * @param off the index to write the first character at
+	 * @param value the value to format
+	 * @param type the data type to format as
+	 * @param rounding how to round the value to the number of decimal places
+	 * @param separator the character to separate the decimal places with
+	 * @param zero the character to write for 0, the other digits follow it
+	 * @return the number of characters written
+	 */
+	public static int format(char[] dst, int off, double value, DataType type, Rounding rounding, char separator, char zero) {
+		if (rounding == Rounding.NUMBER && !Double.isNaN(value))
+			value = formatNumber(value, type);
+		int decimals = type.getNumDecimals();
+		boolean trim = decimals < 0;
+		if (decimals < 0 || decimals > 2)
+			decimals = 2;
+		double a = Math.abs(value);
+		if (!(a < FIXED_LIMIT)) {
+			//Formatter only localizes the digits and the decimal separator
+			String s = String.format(Locale.ENGLISH, FIXED_PATTERNS[decimals], value);
+			int len = s.length();
+			for (int i = 0; i < len; i++) {
+				char c = s.charAt(i);
+				if (c >= '0' && c <= '9')
+					c = (char)(zero + (c - '0'));
+				else if (c == '.')
+					c = separator;
+				dst[off + i] = c;
+			}
+			if (trim && s.indexOf('.') >= 0) {
+				while (dst[off + len - 1] == zero)
+					len--;
+				if (dst[off + len - 1] == separator)
+					len--;
+			}
+			return len;
 		}
+		int pos = off;
+		long p = POW10[decimals];
+		long n = (long)(a * p);
+		//Formatter rounds the shortest decimal representation half up. Below FIXED_LIMIT the
+		//halfway point is the only number with one more decimal place that can round to
+		//this value, so round up if the halfway point is at or below it as a double.
+		if ((2 * n + 1) / (2.0 * p) <= a)
+			n++;
+		if (Double.doubleToRawLongBits(value) < 0)
+			dst[pos++] = '-';
+		long whole = n / p;
+		long fraction = n % p;
+		int end = pos;
+		long v = whole;
+		do {
+			end++;
+			v /= 10;
+		} while (v > 0);
+		for (int i = end - 1; i >= pos; i--) {
+			dst[i] = (char)(zero + whole % 10);
+			whole /= 10;
+		}
+		pos = end;
+		if (trim) {
+			while (decimals > 0 && fraction % 10 == 0) {
+				fraction /= 10;
+				decimals--;
+			}
+		}
+		if (decimals > 0) {
+			dst[pos++] = separator;
+			for (int d = decimals - 1; d >= 0; d--)
+				dst[pos++] = (char)(zero + (fraction / POW10[d]) % 10);
+		}
+		return pos - off;
+	}
+
+	/**
+	 * The decimal separator of the locale set with {@link #setLocale(Locale)}.
+	 */
+	public static char getDecimalSeparator() {
+		return _symbols.decimalSeparator;
+	}
+
+	/**
+	 * The zero digit of the locale set with {@link #setLocale(Locale)}.
+	 */
+	public static char getZeroDigit() {
+		return _symbols.zeroDigit;
 	}
 
 	/**
@@ -202,6 +428,21 @@ public class DecimalUtils {
 	public static Double formatNumber(Double value, DataType type) {
 		if (value == null)
 			value = 0.0;
+		return formatNumber(value.doubleValue(), type);
+	}
+
+	/**
+	 * Round a value to the number of decimal places of a data type, halves are rounded
+	 * towards positive infinity. Values too large to have decimal places are returned
+	 * unchanged.
+	 * 
+	 * @param value the value to round
+	 * @param type the data type to round as
+	 * @return the rounded value
+	 */
+	public static double formatNumber(double value, DataType type) {
+		if (Math.abs(value) >= ROUND_LIMIT)
+			return value;
 		switch (type.getNumDecimals()) {
 		case 0:
 			return ((double)(Math.round(value)));
@@ -212,6 +453,52 @@ public class DecimalUtils {
 		}
 	}
 
+	/**
+	 * How values are rounded to the number of decimal places of their data type when they
+	 * are formatted.
+	 */
+	public static enum Rounding {
+		/**
+		 * Round the shortest decimal representation of the value half up, the same as
+		 * {@link String#format(Locale, String, Object...)} and {@link DecimalUtils#format(Double, DataType)}.
+		 * Negative values that round to zero keep their sign.
+		 */
+		FORMAT,
+		/**
+		 * Round with {@link DecimalUtils#formatNumber(double, DataType)} first, so the output is the
+		 * same as formatting the result of <code>formatNumber</code>. Values that round to zero are
+		 * written without a sign. NaN is written as NaN instead of the 0 <code>formatNumber</code>
+		 * returns for it.
+		 */
+		NUMBER
+	}
+
+	/**
+	 * The locale set with {@link #setLocale(Locale)} and its symbols, replaced as a whole so
+	 * a thread never sees the symbols of one locale with another.
+	 */
+	private static final class Symbols {
+		final Locale locale;
+		final char decimalSeparator;
+		final char zeroDigit;
+
+		Symbols(Locale locale) {
+			DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+			this.locale = locale;
+			this.decimalSeparator = symbols.getDecimalSeparator();
+			this.zeroDigit = symbols.getZeroDigit();
+		}
+	}
+
+	/**
+	 * The formatters used by a single thread, for the symbols they were created with.
+	 */
+	private static class FormatCache {
+		Symbols symbols;
+		final DecimalFormat[] local = new DecimalFormat[PATTERNS.length];
+		final DecimalFormat[] localeless = new DecimalFormat[PATTERNS.length];
+	}
+
 	public static enum DataType {
 		/**
 		 * 1 decimal place.
@@ -0,0 +1,326 @@
+/**
+ * DelimitedUnitConverter.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.hss.general.DecimalUtils.DataType;
+import ca.hss.general.DecimalUtils.Rounding;
+import ca.hss.math.ConversionPlan;
+import ca.hss.math.Convert;
+import ca.hss.text.NumberScanner;
+
+/**
+ * Converts the units of selected columns in a delimited text file (ie. an hourly
+ * weather CSV) while streaming it from a reader to a writer. Only a fixed size
+ * character buffer, grown to fit the longest line, is held in memory. Converted
+ * fields are parsed and written directly from that buffer without creating a
+ * {@link String} for each field.
+ *
+ * Converted values are rounded to the precision of the column's {@link DataType} by
+ * {@link DecimalUtils#formatNumber(double, DataType)} and written without a locale, the same
+ * as passing the rounded value to {@link DecimalUtils#formatLocaleless(Double, DataType)}.
+ * Values that round to zero are written without a sign.
+ * Fields in a converted column that are not numbers (ie. empty or quoted) are copied unchanged.
+ */
+public class DelimitedUnitConverter {
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private final char delimiter;
+	private final int bufferSize;
+	private boolean hasHeader = true;
+	private final Map<String, Column> namedColumns = new HashMap<>();
+	private final Map<Integer, Column> indexedColumns = new HashMap<>();
+
+	private static class Column {
+		final ConversionPlan plan;
+		final DataType type;
+
+		Column(long to_format, long from_format, DataType type) {
+			plan = Convert.plan(to_format, from_format);
+			this.type = type;
+		}
+	}
+
+	/**
+	 * Create a converter for comma separated files.
+	 */
+	public DelimitedUnitConverter() {
+		this(',');
+	}
+
+	/**
+	 * Create a converter for files separated by the given delimiter.
+	 */
+	public DelimitedUnitConverter(char delimiter) {
+		this(delimiter, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a converter for files separated by the given delimiter.
+	 *
+	 * @param delimiter the character that separates fields
+	 * @param bufferSize the initial size of the read and write buffers, in characters
+	 */
+	public DelimitedUnitConverter(char delimiter, int bufferSize) {
+		if (bufferSize < 16)
+			throw new IllegalArgumentException("bufferSize");
+		this.delimiter = delimiter;
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Does the first line of the input contain column names. If it does, the line is
+	 * copied to the output unchanged. Defaults to true.
+	 */
+	public void setHasHeader(boolean hasHeader) {
+		this.hasHeader = hasHeader;
+	}
+
+	public boolean getHasHeader() {
+		return hasHeader;
+	}
+
+	/**
+	 * Convert the column with the given name in the header.
+	 *
+	 * @param name the name of the column, leading and trailing whitespace and quotes are ignored
+	 * @param to_format the format to convert the values to
+	 * @param from_format the format the values are stored in
+	 * @param type the data type used to round the converted values
+	 */
+	public void addColumn(String name, long to_format, long from_format, DataType type) {
+		namedColumns.put(name.trim(), new Column(to_format, from_format, type));
+	}
+
+	/**
+	 * Convert the column at the given index.
+	 *
+	 * @param index the zero based index of the column
+	 * @param to_format the format to convert the values to
+	 * @param from_format the format the values are stored in
+	 * @param type the data type used to round the converted values
+	 */
+	public void addColumn(int index, long to_format, long from_format, DataType type) {
+		indexedColumns.put(index, new Column(to_format, from_format, type));
+	}
+
+	/**
+	 * Convert a file.
+	 *
+	 * @param in the file to read
+	 * @param out the file to write, will be overwritten
+	 * @param charset the character set of both files
+	 * @return the number of data rows that were converted
+	 */
+	public long convert(File in, File out, Charset charset) throws IOException {
+		try (Reader reader = new InputStreamReader(new FileInputStream(in), charset);
+				Writer writer = new OutputStreamWriter(new FileOutputStream(out), charset)) {
+			return convert(reader, writer);
+		}
+	}
+
+	/**
+	 * Convert all lines from a reader and write them to a writer. Neither stream is closed.
+	 *
+	 * @return the number of data rows that were converted
+	 */
+	public long convert(Reader in, Writer out) throws IOException {
+		Job job = new Job(in, out);
+		job.run();
+		return job.rows;
+	}
+
+	private class Job {
+		private final Reader in;
+		private final Writer out;
+		private char[] buf = new char[bufferSize];
+		private final char[] obuf = new char[Math.max(bufferSize, DecimalUtils.MAX_FORMAT_LENGTH)];
+		private int opos = 0;
+		private Column[] columns = null;
+		private long rows = 0;
+		private final NumberScanner scanner = new NumberScanner();
+
+		Job(Reader in, Writer out) {
+			this.in = in;
+			this.out = out;
+			if (!hasHeader)
+				resolveColumns(null);
+		}
+
+		void run() throws IOException {
+			int len = 0, pos = 0, scan = 0;
+			boolean eof = false;
+			while (true) {
+				int nl = -1;
+				for (int i = scan; i < len; i++) {
+					if (buf[i] == '\n') {
+						nl = i;
+						break;
+					}
+				}
+				if (nl < 0) {
+					if (eof) {
+						if (pos < len)
+							line(pos, len, false);
+						break;
+					}
+					if (pos > 0) {
+						System.arraycopy(buf, pos, buf, 0, len - pos);
+						len -= pos;
+						pos = 0;
+					}
+					else if (len == buf.length)
+						buf = Arrays.copyOf(buf, buf.length * 2);
+					scan = len;
+					int read = in.read(buf, len, buf.length - len);
+					if (read < 0)
+						eof = true;
+					else
+						len += read;
+					continue;
+				}
+				line(pos, nl, true);
+				pos = nl + 1;
+				scan = pos;
+			}
+			flush();
+		}
+
+		private void line(int start, int end, boolean newline) throws IOException {
+			boolean cr = end > start && buf[end - 1] == '\r';
+			int last = cr ? end - 1 : end;
+			if (columns == null) {
+				resolveColumns(headerNames(start, last));
+				write(start, last);
+			}
+			else {
+				int column = 0;
+				int fieldStart = start;
+				while (true) {
+					int fieldEnd = fieldEnd(fieldStart, last);
+					Column c = column < columns.length ? columns[column] : null;
+					if (c != null && scanner.scanDouble(buf, fieldStart, fieldEnd))
+						writeFixed(c.plan.apply(scanner.getDouble()), c.type);
+					else
+						write(fieldStart, fieldEnd);
+					if (fieldEnd >= last)
+						break;
+					write(delimiter);
+					fieldStart = fieldEnd + 1;
+					column++;
+				}
+				rows++;
+			}
+			if (cr)
+				write('\r');
+			if (newline)
+				write('\n');
+		}
+
+		private int fieldEnd(int start, int end) {
+			boolean quoted = false;
+			for (int i = start; i < end; i++) {
+				char c = buf[i];
+				if (c == '"')
+					quoted = !quoted;
+				else if (c == delimiter && !quoted)
+					return i;
+			}
+			return end;
+		}
+
+		private List<String> headerNames(int start, int end) {
+			List<String> names = new ArrayList<>();
+			while (true) {
+				int fieldEnd = fieldEnd(start, end);
+				String name = new String(buf, start, fieldEnd - start).trim();
+				if (name.length() > 1 && name.charAt(0) == '"' && name.charAt(name.length() - 1) == '"')
+					name = name.substring(1, name.length() - 1).trim();
+				names.add(name);
+				if (fieldEnd >= end)
+					break;
+				start = fieldEnd + 1;
+			}
+			return names;
+		}
+
+		private void resolveColumns(List<String> names) {
+			int count = names == null ? 0 : names.size();
+			for (Integer index : indexedColumns.keySet())
+				count = Math.max(count, index + 1);
+			columns = new Column[count];
+			for (Map.Entry<Integer, Column> entry : indexedColumns.entrySet())
+				columns[entry.getKey()] = entry.getValue();
+			if (names != null) {
+				for (int i = 0; i < names.size(); i++) {
+					Column c = namedColumns.get(names.get(i));
+					if (c != null)
+						columns[i] = c;
+				}
+			}
+		}
+
+		/**
+		 * Write a value rounded to the precision of a data type.
+		 */
+		private void writeFixed(double value, DataType type) throws IOException {
+			if (obuf.length - opos < DecimalUtils.MAX_FORMAT_LENGTH)
+				flush();
+			opos += DecimalUtils.format(obuf, opos, value, type, Rounding.NUMBER, '.', '0');
+		}
+
+		private void write(char c) throws IOException {
+			if (opos == obuf.length)
+				flush();
+			obuf[opos++] = c;
+		}
+
+		private void write(int start, int end) throws IOException {
+			while (start < end) {
+				if (opos == obuf.length)
+					flush();
+				int count = Math.min(end - start, obuf.length - opos);
+				System.arraycopy(buf, start, obuf, opos, count);
+				opos += count;
+				start += count;
+			}
+		}
+
+		private void flush() throws IOException {
+			if (opos > 0) {
+				out.write(obuf, 0, opos);
+				opos = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * UnitFormatter.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+import ca.hss.general.DecimalUtils.DataType;
+import ca.hss.general.DecimalUtils.Rounding;
+import ca.hss.math.ConversionPlan;
+import ca.hss.math.Convert;
+
+/**
+ * Converts, rounds and formats values in one step. This is the same as calling
+ * {@link Convert#convertUnit(double, long, long)}, {@link DecimalUtils#formatNumber(Double, DataType)}
+ * and {@link DecimalUtils#format(Double, DataType)} in turn, but works on primitive doubles and
+ * writes straight into the caller's buffer so formatting a table doesn't allocate per cell. Both
+ * the decimal separator and the digits come from the locale, and values that round to zero are
+ * written without a sign. NaN is written as NaN rather than rounded to 0.
+ *
+ * A formatter keeps a small scratch buffer so it isn't thread safe. Create one per thread,
+ * they are cheap.
+ */
+public final class UnitFormatter {
+	private final ConversionPlan plan;
+	private final DataType type;
+	private final char decimalSeparator;
+	private final char zeroDigit;
+	private final char[] scratch = new char[DecimalUtils.MAX_FORMAT_LENGTH];
+
+	/**
+	 * Create a formatter that uses the locale set in {@link DecimalUtils}.
+	 *
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 * @param type the data type to round and format values as
+	 */
+	public UnitFormatter(long to_format, long from_format, DataType type) {
+		this(to_format, from_format, type, DecimalUtils.getDecimalSeparator(), DecimalUtils.getZeroDigit());
+	}
+
+	/**
+	 * Create a formatter that uses the symbols of a specific locale. Use {@link Locale#ENGLISH}
+	 * for the same output as passing the rounded value to {@link DecimalUtils#formatLocaleless(Double, DataType)}.
+	 *
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 * @param type the data type to round and format values as
+	 * @param locale the locale to take the decimal separator and digits from
+	 */
+	public UnitFormatter(long to_format, long from_format, DataType type, Locale locale) {
+		this(to_format, from_format, type, DecimalFormatSymbols.getInstance(locale));
+	}
+
+	private UnitFormatter(long to_format, long from_format, DataType type, DecimalFormatSymbols symbols) {
+		this(to_format, from_format, type, symbols.getDecimalSeparator(), symbols.getZeroDigit());
+	}
+
+	private UnitFormatter(long to_format, long from_format, DataType type, char decimalSeparator, char zeroDigit) {
+		this.plan = Convert.plan(to_format, from_format);
+		this.type = type;
+		this.decimalSeparator = decimalSeparator;
+		this.zeroDigit = zeroDigit;
+	}
+
+	public DataType getDataType() {
+		return type;
+	}
+
+	public char getDecimalSeparator() {
+		return decimalSeparator;
+	}
+
+	public char getZeroDigit() {
+		return zeroDigit;
+	}
+
+	/**
+	 * Convert a value and round it to the precision of the data type without formatting it.
+	 */
+	public double round(double value) {
+		return DecimalUtils.formatNumber(plan.apply(value), type);
+	}
+
+	/**
+	 * Convert and format a value into a character array.
+	 *
+	 * @param dst the array to write to, must have at least {@link DecimalUtils#MAX_FORMAT_LENGTH} characters available
+	 * @param off the index to write the first character at
+	 * @param value the value to format, in the from format
+	 * @return the number of characters written
+	 */
+	public int format(char[] dst, int off, double value) {
+		return DecimalUtils.format(dst, off, plan.apply(value), type, Rounding.NUMBER, decimalSeparator, zeroDigit);
+	}
+
+	/**
+	 * Convert and format a value.
+	 */
+	public String format(double value) {
+		return new String(scratch, 0, format(scratch, 0, value));
+	}
+
+	/**
+	 * Convert and format a value onto the end of a string builder.
+	 *
+	 * @return <code>sb</code>
+	 */
+	public StringBuilder append(StringBuilder sb, double value) {
+		return sb.append(scratch, 0, format(scratch, 0, value));
+	}
+
+	/**
+	 * Convert and format a value into a character buffer.
+	 *
+	 * @return <code>buffer</code>
+	 * @throws java.nio.BufferOverflowException if there isn't room for the value
+	 */
+	public CharBuffer append(CharBuffer buffer, double value) {
+		return buffer.put(scratch, 0, format(scratch, 0, value));
+	}
+
+	/**
+	 * Convert and format a value to any appendable, ie. a writer.
+	 *
+	 * @return <code>out</code>
+	 */
+	public Appendable append(Appendable out, double value) throws IOException {
+		int len = format(scratch, 0, value);
+		for (int i = 0; i < len; i++)
+			out.append(scratch[i]);
+		return out;
+	}
+
+	/**
+	 * Convert and format a range of values onto the end of a string builder, separated
+	 * by a delimiter.
+	 *
+	 * @param sb the builder to append to
+	 * @param values the values to format, in the from format
+	 * @param off the index of the first value
+	 * @param len the number of values
+	 * @param delimiter the character to write between values
+	 * @return <code>sb</code>
+	 */
+	public StringBuilder append(StringBuilder sb, double[] values, int off, int len, char delimiter) {
+		if (off < 0 || len < 0 || off > values.length - len)
+			throw new IndexOutOfBoundsException("offset " + off + ", length " + len + ", size " + values.length);
+		for (int i = off; i < off + len; i++) {
+			if (i > off)
+				sb.append(delimiter);
+			sb.append(scratch, 0, format(scratch, 0, values[i]));
+		}
+		return sb;
+	}
+}
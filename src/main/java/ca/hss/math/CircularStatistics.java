@@ -0,0 +1,251 @@
+/**
+ * CircularStatistics.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static ca.hss.math.General.TWO_PI;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Mean direction, mean resultant length and circular variance of angles. Each angle is
+ * added as a unit vector so averages are correct across the 0/360 wrap, ie. the mean of
+ * 350&deg; and 10&deg; is 0&deg;, not 180&deg;.
+ *
+ * Angles can be in any angle {@link Convert.STORAGE_FORMAT}, compass or cartesian. Only the
+ * sums of the sines and cosines are kept so adding angles never allocates, and partial
+ * results from different threads, or in different formats, can be merged with
+ * {@link #combine(CircularStatistics)}. Instances are not synchronized.
+ */
+public class CircularStatistics implements DoubleConsumer {
+	private final long format;
+	private final boolean compass;
+	private final double toRadian;
+	private long count;
+	private double weight;
+	private double sinSum;
+	private double cosSum;
+
+	/**
+	 * @param format the angle format values will be stored in
+	 * @throws IllegalArgumentException if the format isn't an angle
+	 */
+	public CircularStatistics(long format) {
+		if ((format & ~Convert.STORAGE_FORMAT.ANGLE_MASK) != Convert.STORAGE_FORMAT.ANGLE)
+			throw new IllegalArgumentException("Not an angle format: 0x" + Long.toHexString(format));
+		this.format = format;
+		this.compass = (format & Convert.STORAGE_FORMAT.ANGLE_ROTATION_MASK) == Convert.STORAGE_FORMAT.COMPASS;
+		this.toRadian = Convert.plan(Convert.STORAGE_FORMAT.ANGLE, format & ~Convert.STORAGE_FORMAT.ANGLE_ROTATION_MASK).getScale();
+	}
+
+	/**
+	 * Aggregate a range of an array.
+	 *
+	 * @param values the angles
+	 * @param off the index of the first angle
+	 * @param len the number of angles
+	 * @param format the format the angles are stored in
+	 */
+	public static CircularStatistics of(double[] values, int off, int len, long format) {
+		CircularStatistics retval = new CircularStatistics(format);
+		retval.accept(values, off, len);
+		return retval;
+	}
+
+	/**
+	 * Aggregate every angle in an array.
+	 *
+	 * @param values the angles
+	 * @param format the format the angles are stored in
+	 */
+	public static CircularStatistics of(double[] values, long format) {
+		return of(values, 0, values.length, format);
+	}
+
+	/**
+	 * Aggregate an array on multiple threads. Each chunk is aggregated separately and the
+	 * partial results are combined.
+	 *
+	 * @param values the angles
+	 * @param format the format the angles are stored in
+	 * @param converter decides how to split the array
+	 */
+	public static CircularStatistics of(final double[] values, long format, ParallelConverter converter) {
+		final CircularStatistics retval = new CircularStatistics(format);
+		converter.run(values.length, (start, end) -> {
+			CircularStatistics part = of(values, start, end - start, format);
+			synchronized (retval) {
+				retval.combine(part);
+			}
+		});
+		return retval;
+	}
+
+	/**
+	 * The format angles are stored in.
+	 */
+	public long getFormat() {
+		return format;
+	}
+
+	@Override
+	public void accept(double value) {
+		double a = value * toRadian;
+		count++;
+		weight += 1.0;
+		sinSum += java.lang.Math.sin(a);
+		cosSum += java.lang.Math.cos(a);
+	}
+
+	/**
+	 * Add an angle with a weight, ie. a wind direction weighted by its speed.
+	 *
+	 * @param value the angle
+	 * @param w the weight of the angle
+	 */
+	public void accept(double value, double w) {
+		double a = value * toRadian;
+		count++;
+		weight += w;
+		sinSum += w * java.lang.Math.sin(a);
+		cosSum += w * java.lang.Math.cos(a);
+	}
+
+	/**
+	 * Aggregate a range of an array.
+	 *
+	 * @param values the angles, in the format of these statistics
+	 * @param off the index of the first angle
+	 * @param len the number of angles
+	 */
+	public void accept(double[] values, int off, int len) {
+		ConversionPlan.checkRange(values.length, off, len);
+		final double scale = toRadian;
+		double s = sinSum, c = cosSum;
+		for (int i = off; i < off + len; i++) {
+			double a = values[i] * scale;
+			s += java.lang.Math.sin(a);
+			c += java.lang.Math.cos(a);
+		}
+		sinSum = s;
+		cosSum = c;
+		count += len;
+		weight += len;
+	}
+
+	/**
+	 * Aggregate a range of an array of single precision angles.
+	 *
+	 * @param values the angles, in the format of these statistics
+	 * @param off the index of the first angle
+	 * @param len the number of angles
+	 */
+	public void accept(float[] values, int off, int len) {
+		ConversionPlan.checkRange(values.length, off, len);
+		final double scale = toRadian;
+		double s = sinSum, c = cosSum;
+		for (int i = off; i < off + len; i++) {
+			double a = values[i] * scale;
+			s += java.lang.Math.sin(a);
+			c += java.lang.Math.cos(a);
+		}
+		sinSum = s;
+		cosSum = c;
+		count += len;
+		weight += len;
+	}
+
+	/**
+	 * Merge another set of statistics into this one. The other statistics can be in a
+	 * different format, the unit doesn't affect the sums and switching between compass
+	 * and cartesian rotation swaps the sine and cosine.
+	 *
+	 * @param other the statistics to merge
+	 * @return this
+	 */
+	public CircularStatistics combine(CircularStatistics other) {
+		count += other.count;
+		weight += other.weight;
+		if (other.compass == compass) {
+			sinSum += other.sinSum;
+			cosSum += other.cosSum;
+		}
+		else {
+			sinSum += other.cosSum;
+			cosSum += other.sinSum;
+		}
+		return this;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * The sum of the weights of the angles, the same as the count unless weights were given.
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * The mean direction in the format angles are stored in, normalized to a single turn.
+	 * NaN if there are no angles or they cancel each other out.
+	 */
+	public double getMeanDirection() {
+		if (count == 0 || (sinSum == 0.0 && cosSum == 0.0))
+			return Double.NaN;
+		double a = java.lang.Math.atan2(sinSum, cosSum);
+		return General.reduce(a, TWO_PI) / toRadian;
+	}
+
+	/**
+	 * The mean direction in another angle format.
+	 *
+	 * @param to_format the format to report the mean direction in
+	 */
+	public double getMeanDirection(long to_format) {
+		double mean = getMeanDirection();
+		if (Double.isNaN(mean))
+			return mean;
+		return Convert.plan(to_format, format).applyAsDouble(mean);
+	}
+
+	/**
+	 * The length of the mean of the unit vectors, from 0 when the angles are spread evenly
+	 * to 1 when they are all the same. NaN if there are no angles.
+	 */
+	public double getResultantLength() {
+		if (count == 0)
+			return Double.NaN;
+		return java.lang.Math.min(1.0, java.lang.Math.sqrt(sinSum * sinSum + cosSum * cosSum) / weight);
+	}
+
+	/**
+	 * The circular variance, <code>1 - getResultantLength()</code>.
+	 */
+	public double getCircularVariance() {
+		return 1.0 - getResultantLength();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s{count=%d, mean=%f, resultant=%f, format=0x%x}",
+				getClass().getSimpleName(), getCount(), getMeanDirection(), getResultantLength(), format);
+	}
+}
@@ -0,0 +1,440 @@
+/**
+ * ConversionPlan.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.function.DoubleUnaryOperator;
+
+import static ca.hss.math.General.*;
+
+/**
+ * A conversion between two storage formats that has been resolved ahead of time.
+ *
+ * Every linear and affine conversion (distance, area, volume, mass, energy, pressure,
+ * intensity, fuel consumption, temperature and the percent/decimal inversions) is
+ * reduced to a single <code>value * scale + offset</code>. Angle conversions that change
+ * between compass and cartesian rotation need a normalization step and are flagged as
+ * such. Plans are immutable and may be shared between threads.
+ *
+ * Use {@link Convert#plan(long, long)} to obtain a plan. Plans are also
+ * {@link DoubleUnaryOperator}s so they can be passed straight to <code>DoubleStream.map</code>.
+ */
+public final class ConversionPlan implements DoubleUnaryOperator {
+	static final int AFFINE = 0;
+	static final int ANGLE = 1;
+	static final int CHAINED = 2;
+
+	final long to;
+	final long from;
+	final int kind;
+	final double scale;
+	final double offset;
+	/**
+	 * Angle plans only, rotate from compass to cartesian before converting.
+	 */
+	final boolean fromCompass;
+	/**
+	 * Angle plans only, rotate from cartesian to compass after converting.
+	 */
+	final boolean toCompass;
+	/**
+	 * Angle plans only, the scale to apply after the rotation has been changed.
+	 */
+	final double angleScale;
+	/**
+	 * The scale narrowed to single precision, for float data.
+	 */
+	final float floatScale;
+	/**
+	 * The offset narrowed to single precision, for float data.
+	 */
+	final float floatOffset;
+	/**
+	 * Chained plans only, applied first.
+	 */
+	final ConversionPlan first;
+	/**
+	 * Chained plans only, applied second.
+	 */
+	final ConversionPlan second;
+
+	private ConversionPlan(long to, long from, int kind, double scale, double offset, boolean fromCompass,
+			boolean toCompass, double angleScale, ConversionPlan first, ConversionPlan second) {
+		this.to = to;
+		this.from = from;
+		this.kind = kind;
+		this.scale = scale;
+		this.offset = offset;
+		this.fromCompass = fromCompass;
+		this.toCompass = toCompass;
+		this.angleScale = angleScale;
+		this.floatScale = (float)scale;
+		this.floatOffset = (float)offset;
+		this.first = first;
+		this.second = second;
+	}
+
+	static ConversionPlan affine(long to, long from, double scale, double offset) {
+		return new ConversionPlan(to, from, AFFINE, scale, offset, false, false, 1.0, null, null);
+	}
+
+	static ConversionPlan angle(long to, long from, double scale, boolean fromCompass, boolean toCompass, double angleScale) {
+		return new ConversionPlan(to, from, ANGLE, scale, 0.0, fromCompass, toCompass, angleScale, null, null);
+	}
+
+	/**
+	 * Apply <code>first</code> and then <code>second</code>. If both are affine they are folded
+	 * into a single affine plan, otherwise they are chained.
+	 */
+	static ConversionPlan compose(long to, long from, ConversionPlan first, ConversionPlan second) {
+		if (first.kind == AFFINE && second.kind == AFFINE)
+			return affine(to, from, first.scale * second.scale, first.offset * second.scale + second.offset);
+		return new ConversionPlan(to, from, CHAINED, 1.0, 0.0, false, false, 1.0, first, second);
+	}
+
+	/**
+	 * The format that values will be converted to.
+	 */
+	public long getToFormat() {
+		return to;
+	}
+
+	/**
+	 * The format that values will be converted from.
+	 */
+	public long getFromFormat() {
+		return from;
+	}
+
+	/**
+	 * Can the conversion be expressed as <code>value * getScale() + getOffset()</code>.
+	 */
+	public boolean isAffine() {
+		return kind == AFFINE;
+	}
+
+	/**
+	 * Is this conversion a no-op.
+	 */
+	public boolean isIdentity() {
+		return kind == AFFINE && scale == 1.0 && offset == 0.0;
+	}
+
+	/**
+	 * The multiplier applied to values. Only meaningful if {@link #isAffine()} is true.
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * The offset added to values after they have been scaled. Only meaningful if {@link #isAffine()} is true.
+	 */
+	public double getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Convert a single value.
+	 *
+	 * @param value the value to convert, in the from format
+	 * @return the value in the to format
+	 */
+	public double apply(double value) {
+		if (kind == AFFINE)
+			return value * scale + offset;
+		return applySlow(value);
+	}
+
+	@Override
+	public double applyAsDouble(double value) {
+		if (kind == AFFINE)
+			return value * scale + offset;
+		return applySlow(value);
+	}
+
+	/**
+	 * Convert a single precision value. Affine conversions are computed in single precision
+	 * using the same factors as {@link #apply(double)}, narrowed to float.
+	 *
+	 * @param value the value to convert, in the from format
+	 * @return the value in the to format
+	 */
+	public float applyFloat(float value) {
+		if (kind == AFFINE)
+			return value * floatScale + floatOffset;
+		return (float)applySlow(value);
+	}
+
+	/**
+	 * Convert a range of values from one array into another. The source and destination
+	 * may be the same array but the two ranges must not partially overlap.
+	 *
+	 * @param src the values to convert, in the from format
+	 * @param srcOff the index of the first value to convert in <code>src</code>
+	 * @param dst the array to store the converted values in
+	 * @param dstOff the index in <code>dst</code> to store the first converted value at
+	 * @param len the number of values to convert
+	 */
+	public void apply(double[] src, int srcOff, double[] dst, int dstOff, int len) {
+		checkRange(src.length, srcOff, len);
+		checkRange(dst.length, dstOff, len);
+		if (kind == AFFINE) {
+			if (scale == 1.0 && offset == 0.0) {
+				if (src != dst || srcOff != dstOff)
+					System.arraycopy(src, srcOff, dst, dstOff, len);
+			}
+			else {
+				final double s = scale;
+				final double o = offset;
+				for (int i = 0; i < len; i++)
+					dst[dstOff + i] = src[srcOff + i] * s + o;
+			}
+		}
+		else if (kind == CHAINED) {
+			first.apply(src, srcOff, dst, dstOff, len);
+			second.apply(dst, dstOff, dst, dstOff, len);
+		}
+		else {
+			General.affine(-scale, PI * 2.5, TWO_PI, src, srcOff, dst, dstOff, len);
+			if (fromCompass && toCompass)
+				General.affine(-1.0, PI * 2.5, TWO_PI, dst, dstOff, dst, dstOff, len);
+			if (angleScale != 1.0) {
+				final double s = angleScale;
+				for (int i = dstOff; i < dstOff + len; i++)
+					dst[i] *= s;
+			}
+		}
+	}
+
+	/**
+	 * Convert a range of single precision values from one array into another without
+	 * widening them to double. The source and destination may be the same array but the
+	 * two ranges must not partially overlap.
+	 *
+	 * @param src the values to convert, in the from format
+	 * @param srcOff the index of the first value to convert in <code>src</code>
+	 * @param dst the array to store the converted values in
+	 * @param dstOff the index in <code>dst</code> to store the first converted value at
+	 * @param len the number of values to convert
+	 */
+	public void apply(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		checkRange(src.length, srcOff, len);
+		checkRange(dst.length, dstOff, len);
+		if (kind == AFFINE) {
+			if (scale == 1.0 && offset == 0.0) {
+				if (src != dst || srcOff != dstOff)
+					System.arraycopy(src, srcOff, dst, dstOff, len);
+			}
+			else {
+				final float s = floatScale;
+				final float o = floatOffset;
+				for (int i = 0; i < len; i++)
+					dst[dstOff + i] = src[srcOff + i] * s + o;
+			}
+		}
+		else if (kind == CHAINED) {
+			first.apply(src, srcOff, dst, dstOff, len);
+			second.apply(dst, dstOff, dst, dstOff, len);
+		}
+		else {
+			General.affine(-scale, PI * 2.5, TWO_PI, src, srcOff, dst, dstOff, len);
+			if (fromCompass && toCompass)
+				General.affine(-1.0, PI * 2.5, TWO_PI, dst, dstOff, dst, dstOff, len);
+			if (angleScale != 1.0) {
+				final double s = angleScale;
+				for (int i = dstOff; i < dstOff + len; i++)
+					dst[i] = (float)(dst[i] * s);
+			}
+		}
+	}
+
+	/**
+	 * Convert a range of single precision values in place.
+	 *
+	 * @param values the values to convert
+	 * @param off the index of the first value to convert
+	 * @param len the number of values to convert
+	 */
+	public void apply(float[] values, int off, int len) {
+		apply(values, off, values, off, len);
+	}
+
+	/**
+	 * Convert every value in a single precision array in place.
+	 *
+	 * @param values the values to convert
+	 */
+	public void apply(float[] values) {
+		apply(values, 0, values, 0, values.length);
+	}
+
+	/**
+	 * Convert a range of values in place.
+	 *
+	 * @param values the values to convert
+	 * @param off the index of the first value to convert
+	 * @param len the number of values to convert
+	 */
+	public void apply(double[] values, int off, int len) {
+		apply(values, off, values, off, len);
+	}
+
+	/**
+	 * Convert every value in an array in place.
+	 *
+	 * @param values the values to convert
+	 */
+	public void apply(double[] values) {
+		apply(values, 0, values, 0, values.length);
+	}
+
+	/**
+	 * Convert a range of values from one buffer into another using absolute indices. The
+	 * positions and limits of the buffers are not modified. The buffers may be direct or
+	 * memory mapped, in which case no values are copied onto the heap.
+	 *
+	 * @param src the values to convert, in the from format
+	 * @param srcIndex the index of the first value to convert in <code>src</code>
+	 * @param dst the buffer to store the converted values in, may be <code>src</code>
+	 * @param dstIndex the index in <code>dst</code> to store the first converted value at
+	 * @param len the number of values to convert
+	 */
+	public void apply(DoubleBuffer src, int srcIndex, DoubleBuffer dst, int dstIndex, int len) {
+		checkRange(src.limit(), srcIndex, len);
+		checkRange(dst.limit(), dstIndex, len);
+		if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+			apply(src.array(), src.arrayOffset() + srcIndex, dst.array(), dst.arrayOffset() + dstIndex, len);
+		}
+		else if (kind == AFFINE) {
+			final double s = scale;
+			final double o = offset;
+			if (s == 1.0 && o == 0.0) {
+				if (src != dst || srcIndex != dstIndex) {
+					for (int i = 0; i < len; i++)
+						dst.put(dstIndex + i, src.get(srcIndex + i));
+				}
+			}
+			else {
+				for (int i = 0; i < len; i++)
+					dst.put(dstIndex + i, src.get(srcIndex + i) * s + o);
+			}
+		}
+		else if (kind == CHAINED) {
+			first.apply(src, srcIndex, dst, dstIndex, len);
+			second.apply(dst, dstIndex, dst, dstIndex, len);
+		}
+		else {
+			General.affine(-scale, PI * 2.5, TWO_PI, src, srcIndex, dst, dstIndex, len);
+			if (fromCompass && toCompass)
+				General.affine(-1.0, PI * 2.5, TWO_PI, dst, dstIndex, dst, dstIndex, len);
+			if (angleScale != 1.0) {
+				for (int i = dstIndex; i < dstIndex + len; i++)
+					dst.put(i, dst.get(i) * angleScale);
+			}
+		}
+	}
+
+	/**
+	 * Convert the values between the buffer's position and limit in place. The position
+	 * of the buffer is not modified.
+	 *
+	 * @param buffer the values to convert
+	 */
+	public void apply(DoubleBuffer buffer) {
+		apply(buffer, buffer.position(), buffer, buffer.position(), buffer.remaining());
+	}
+
+	/**
+	 * Convert a range of values from one buffer into another using absolute indices. The
+	 * positions and limits of the buffers are not modified. The buffers may be direct or
+	 * memory mapped, in which case no values are copied onto the heap.
+	 *
+	 * @param src the values to convert, in the from format
+	 * @param srcIndex the index of the first value to convert in <code>src</code>
+	 * @param dst the buffer to store the converted values in, may be <code>src</code>
+	 * @param dstIndex the index in <code>dst</code> to store the first converted value at
+	 * @param len the number of values to convert
+	 */
+	public void apply(FloatBuffer src, int srcIndex, FloatBuffer dst, int dstIndex, int len) {
+		checkRange(src.limit(), srcIndex, len);
+		checkRange(dst.limit(), dstIndex, len);
+		if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+			apply(src.array(), src.arrayOffset() + srcIndex, dst.array(), dst.arrayOffset() + dstIndex, len);
+		}
+		else if (kind == AFFINE) {
+			final float s = floatScale;
+			final float o = floatOffset;
+			if (scale == 1.0 && offset == 0.0) {
+				if (src != dst || srcIndex != dstIndex) {
+					for (int i = 0; i < len; i++)
+						dst.put(dstIndex + i, src.get(srcIndex + i));
+				}
+			}
+			else {
+				for (int i = 0; i < len; i++)
+					dst.put(dstIndex + i, src.get(srcIndex + i) * s + o);
+			}
+		}
+		else if (kind == CHAINED) {
+			first.apply(src, srcIndex, dst, dstIndex, len);
+			second.apply(dst, dstIndex, dst, dstIndex, len);
+		}
+		else {
+			General.affine(-scale, PI * 2.5, TWO_PI, src, srcIndex, dst, dstIndex, len);
+			if (fromCompass && toCompass)
+				General.affine(-1.0, PI * 2.5, TWO_PI, dst, dstIndex, dst, dstIndex, len);
+			if (angleScale != 1.0) {
+				for (int i = dstIndex; i < dstIndex + len; i++)
+					dst.put(i, (float)(dst.get(i) * angleScale));
+			}
+		}
+	}
+
+	/**
+	 * Convert the values between the buffer's position and limit in place. The position
+	 * of the buffer is not modified.
+	 *
+	 * @param buffer the values to convert
+	 */
+	public void apply(FloatBuffer buffer) {
+		apply(buffer, buffer.position(), buffer, buffer.position(), buffer.remaining());
+	}
+
+	static void checkRange(int length, int off, int len) {
+		if (off < 0 || len < 0 || off > length - len)
+			throw new IndexOutOfBoundsException("offset " + off + ", length " + len + ", size " + length);
+	}
+
+	/**
+	 * The bulk methods do the same with the batch angle routines in {@link General}.
+	 */
+	private double applySlow(double value) {
+		if (kind == ANGLE) {
+			value *= scale;
+			if (fromCompass)
+				value = COMPASS_TO_CARTESIAN_RADIAN(value);
+			if (toCompass)
+				value = CARTESIAN_TO_COMPASS_RADIAN(value);
+			return value * angleScale;
+		}
+		return second.apply(first.apply(value));
+	}
+}
@@ -18,9 +18,13 @@
 
 package ca.hss.math;
 
-import ca.hss.annotations.Source;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
 
-import static ca.hss.math.General.*;
+import ca.hss.annotations.Source;
 
 /**
  * Methods for converting units.
@@ -39,310 +43,434 @@ public class Convert {
 	protected final static double intensity_translation[] = { 3.461, 1.0 };
 	protected final static double consumption_translation[] = { 0.2242, 1.0 };
 
+	/**
+	 * Seconds in each time unit, indexed by <code>(format &amp; TIME_UNIT_MASK) &gt;&gt; 16</code>. Unused
+	 * indices leave the value unchanged. The microsecond and millisecond factors match convert.cpp.
+	 */
+	protected final static double time_translation[] = { 1.0, 1.0, 60.0, 60.0 * 60.0, 24.0 * 60.0 * 60.0, 604800.0, 2629743.83, 31556926.0,
+		1.0 / 1000.0, 1.0 / 1000000.0, 315569260.0, 3155692600.0, 1.0, 1.0, 1.0, 1.0 };
+
+	private static final int PLAN_CACHE_SIZE = 256;
+	private static final PlanEntry plan_cache[] = new PlanEntry[PLAN_CACHE_SIZE];
+	/**
+	 * Changed whenever the cached plans become stale. A plan that was resolved while a
+	 * different generation was current is treated as a cache miss.
+	 */
+	private static volatile int plan_generation;
+
 	public static double convertUnit(double value, long to_format, long from_format) {
 		if (from_format == to_format)
 			return value;
-		
+		return plan(to_format, from_format).apply(value);
+	}
+
+	/**
+	 * Build a compound format from two simple formats, ie. <code>compound(KG, M2)</code>
+	 * for kilograms per square metre. The numerator is stored in the high 32 bits and the
+	 * denominator in the low 32 bits. Conversions between compound formats are reduced to
+	 * a single factor by {@link #plan(long, long)}, and the derived formats
+	 * {@link STORAGE_FORMAT#KG_PER_M2}, {@link STORAGE_FORMAT#TONS_PER_ACRE},
+	 * {@link STORAGE_FORMAT#KILOWATT_PER_M} and {@link STORAGE_FORMAT#BTU_FT_S} can be
+	 * converted to and from compound formats.
+	 *
+	 * @param numerator the format of the numerator
+	 * @param denominator the format of the denominator
+	 * @return the compound format
+	 */
+	public static long compound(long numerator, long denominator) {
+		return ((numerator & 0x00000000ffffffffL) << 0x20) | (denominator & 0x00000000ffffffffL);
+	}
+
+	/**
+	 * Convert a single precision value. The conversion is computed in single precision.
+	 *
+	 * @param value the value to convert
+	 * @param to_format the format to convert the value to
+	 * @param from_format the format the value is stored in
+	 * @return the converted value
+	 */
+	public static float convertUnitFloat(float value, long to_format, long from_format) {
+		if (from_format == to_format)
+			return value;
+		return plan(to_format, from_format).applyFloat(value);
+	}
+
+	/**
+	 * Convert a range of values from one array into another. The conversion is resolved
+	 * once for the whole range.
+	 *
+	 * @param src the values to convert
+	 * @param srcOff the index of the first value to convert in <code>src</code>
+	 * @param dst the array to store the converted values in, may be <code>src</code>
+	 * @param dstOff the index in <code>dst</code> to store the first converted value at
+	 * @param len the number of values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(double[] src, int srcOff, double[] dst, int dstOff, int len, long to_format, long from_format) {
+		plan(to_format, from_format).apply(src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of values in place.
+	 *
+	 * @param values the values to convert
+	 * @param off the index of the first value to convert
+	 * @param len the number of values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(double[] values, int off, int len, long to_format, long from_format) {
+		plan(to_format, from_format).apply(values, off, values, off, len);
+	}
+
+	/**
+	 * Convert every value in an array in place.
+	 *
+	 * @param values the values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(double[] values, long to_format, long from_format) {
+		plan(to_format, from_format).apply(values, 0, values, 0, values.length);
+	}
+
+	/**
+	 * Convert a range of single precision values from one array into another without
+	 * staging them through a double array.
+	 *
+	 * @param src the values to convert
+	 * @param srcOff the index of the first value to convert in <code>src</code>
+	 * @param dst the array to store the converted values in, may be <code>src</code>
+	 * @param dstOff the index in <code>dst</code> to store the first converted value at
+	 * @param len the number of values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(float[] src, int srcOff, float[] dst, int dstOff, int len, long to_format, long from_format) {
+		plan(to_format, from_format).apply(src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of single precision values in place.
+	 *
+	 * @param values the values to convert
+	 * @param off the index of the first value to convert
+	 * @param len the number of values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(float[] values, int off, int len, long to_format, long from_format) {
+		plan(to_format, from_format).apply(values, off, values, off, len);
+	}
+
+	/**
+	 * Convert every value in a single precision array in place.
+	 *
+	 * @param values the values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(float[] values, long to_format, long from_format) {
+		plan(to_format, from_format).apply(values, 0, values, 0, values.length);
+	}
+
+	/**
+	 * Convert the values between the buffer's position and limit in place. The buffer may be
+	 * direct or memory mapped. The position of the buffer is not modified.
+	 *
+	 * @param buffer the values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(DoubleBuffer buffer, long to_format, long from_format) {
+		plan(to_format, from_format).apply(buffer);
+	}
+
+	/**
+	 * Convert the values remaining in <code>src</code> into <code>dst</code>, starting at
+	 * the position of each buffer. The positions of the buffers are not modified.
+	 *
+	 * @param src the values to convert
+	 * @param dst the buffer to store the converted values in, must have at least as many values remaining as <code>src</code>
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(DoubleBuffer src, DoubleBuffer dst, long to_format, long from_format) {
+		plan(to_format, from_format).apply(src, src.position(), dst, dst.position(), remaining(src.remaining(), dst.remaining()));
+	}
+
+	/**
+	 * Convert the values between the buffer's position and limit in place. The buffer may be
+	 * direct or memory mapped. The position of the buffer is not modified.
+	 *
+	 * @param buffer the values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(FloatBuffer buffer, long to_format, long from_format) {
+		plan(to_format, from_format).apply(buffer);
+	}
+
+	/**
+	 * Convert the values remaining in <code>src</code> into <code>dst</code>, starting at
+	 * the position of each buffer. The positions of the buffers are not modified.
+	 *
+	 * @param src the values to convert
+	 * @param dst the buffer to store the converted values in, must have at least as many values remaining as <code>src</code>
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertUnit(FloatBuffer src, FloatBuffer dst, long to_format, long from_format) {
+		plan(to_format, from_format).apply(src, src.position(), dst, dst.position(), remaining(src.remaining(), dst.remaining()));
+	}
+
+	/**
+	 * Convert the doubles stored between the buffer's position and limit in place. The byte
+	 * order of the buffer is used to read and write the values, so set it before calling this
+	 * (ie. {@link java.nio.ByteOrder#LITTLE_ENDIAN} for most grid files). The position of the
+	 * buffer is not modified.
+	 *
+	 * @param buffer the values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertDoubles(ByteBuffer buffer, long to_format, long from_format) {
+		plan(to_format, from_format).apply(buffer.asDoubleBuffer());
+	}
+
+	/**
+	 * Convert the doubles remaining in <code>src</code> into <code>dst</code>. The byte
+	 * order of each buffer is used to read and write the values. The positions of the buffers
+	 * are not modified.
+	 *
+	 * @param src the values to convert
+	 * @param dst the buffer to store the converted values in
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertDoubles(ByteBuffer src, ByteBuffer dst, long to_format, long from_format) {
+		convertUnit(src.asDoubleBuffer(), dst.asDoubleBuffer(), to_format, from_format);
+	}
+
+	/**
+	 * Convert the floats stored between the buffer's position and limit in place. The byte
+	 * order of the buffer is used to read and write the values, so set it before calling this
+	 * (ie. {@link java.nio.ByteOrder#LITTLE_ENDIAN} for most grid files). The position of the
+	 * buffer is not modified.
+	 *
+	 * @param buffer the values to convert
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertFloats(ByteBuffer buffer, long to_format, long from_format) {
+		plan(to_format, from_format).apply(buffer.asFloatBuffer());
+	}
+
+	/**
+	 * Convert the floats remaining in <code>src</code> into <code>dst</code>. The byte
+	 * order of each buffer is used to read and write the values. The positions of the buffers
+	 * are not modified.
+	 *
+	 * @param src the values to convert
+	 * @param dst the buffer to store the converted values in
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static void convertFloats(ByteBuffer src, ByteBuffer dst, long to_format, long from_format) {
+		convertUnit(src.asFloatBuffer(), dst.asFloatBuffer(), to_format, from_format);
+	}
+
+	private static int remaining(int src, int dst) {
+		if (dst < src)
+			throw new BufferOverflowException();
+		return src;
+	}
+
+	/**
+	 * Get a precomputed conversion between two formats. Plans are cached so repeated
+	 * requests for the same pair of formats are cheap.
+	 *
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 * @return a plan that converts values from <code>from_format</code> to <code>to_format</code>
+	 */
+	public static ConversionPlan plan(long to_format, long from_format) {
+		long hash = (to_format * 31 + from_format) * 0x9E3779B97F4A7C15L;
+		int index = (int)(hash >>> 56) & (PLAN_CACHE_SIZE - 1);
+		//read the generation before resolving so a plan resolved against stale tables is never current
+		int generation = plan_generation;
+		PlanEntry entry = plan_cache[index];
+		if (entry == null || entry.generation != generation || entry.plan.to != to_format || entry.plan.from != from_format) {
+			entry = new PlanEntry(resolve(to_format, from_format), generation);
+			plan_cache[index] = entry;
+		}
+		return entry.plan;
+	}
+
+	/**
+	 * Forget every cached conversion plan. Plans that are being resolved by other threads
+	 * when this is called won't be used once it returns.
+	 */
+	static synchronized void clearPlans() {
+		plan_generation++;
+		Arrays.fill(plan_cache, null);
+	}
+
+	private static final class PlanEntry {
+		final ConversionPlan plan;
+		final int generation;
+
+		PlanEntry(ConversionPlan plan, int generation) {
+			this.plan = plan;
+			this.generation = generation;
+		}
+	}
+
+	private static ConversionPlan resolve(long to_format, long from_format) {
+		final long to = to_format, from = from_format;
+		if (from_format == to_format)
+			return ConversionPlan.affine(to, from, 1.0, 0.0);
+
 		if (((from_format & 0xffffffff00000000L) != 0) || ((to_format & 0xffffffff00000000L) != 0)) {
-			double val = convertUnit(value, (to_format >> 0x20) & 0x00000000ffffffffL, (from_format >> 0x20) & 0x00000000ffffffffL);
-			val = convertUnit(val, from_format & 0x00000000ffffffffL, to_format & 0x00000000ffffffffL);
-			return val;
+			//if only one side is compound, let derived units like kg/m2 be converted to their compound form
+			if ((from_format & 0xffffffff00000000L) == 0)
+				from_format = expandDerived(from_format);
+			else if ((to_format & 0xffffffff00000000L) == 0)
+				to_format = expandDerived(to_format);
+			//the numerator is converted directly and the denominator inversely
+			ConversionPlan numerator = resolve((to_format >> 0x20) & 0x00000000ffffffffL, (from_format >> 0x20) & 0x00000000ffffffffL);
+			ConversionPlan denominator = resolve(from_format & 0x00000000ffffffffL, to_format & 0x00000000ffffffffL);
+			return ConversionPlan.compose(to, from, numerator, denominator);
 		}
-		
-		from_format &= 0xffffffff;
-		to_format &= 0xffffffffL;
-		
+
+		double scale = 1.0;
 		if (from_format != 0 && to_format != 0) {
 			if (((from_format & STORAGE_FORMAT.TIME_MASK) != 0 && (from_format & (~STORAGE_FORMAT.TIME_MASK)) != 0) ||
 					((to_format & STORAGE_FORMAT.TIME_MASK) != 0 && (to_format & (~STORAGE_FORMAT.TIME_MASK)) != 0)) {
-				if ((from_format & STORAGE_FORMAT.TIME_MASK) != (to_format & STORAGE_FORMAT.TIME_MASK)) {
-					if ((from_format & STORAGE_FORMAT.TIME_MULT) != 0) {
-						long val = from_format & STORAGE_FORMAT.TIME_UNIT_MASK;
-						if (val == STORAGE_FORMAT.MICROSECOND)
-							value /= 1000.0;
-						else if (val == STORAGE_FORMAT.MILLISECOND)
-							value /= 1000000.0;
-						else if (val == STORAGE_FORMAT.MINUTE)
-							value *= 60.0;
-						else if (val == STORAGE_FORMAT.HOUR)
-							value *= (60.0 * 60.0);
-						else if (val == STORAGE_FORMAT.DAY)
-							value *= (24.0 * 60.0 * 60.0);
-						else if (val == STORAGE_FORMAT.WEEK)
-							value *= 604800.0;
-						else if (val == STORAGE_FORMAT.MONTH)
-							value *= 2629743.83;
-						else if (val == STORAGE_FORMAT.YEAR)
-							value *= 31556926.0;
-						else if (val == STORAGE_FORMAT.DECADE)
-							value *= 315569260.0;
-						else if (val == STORAGE_FORMAT.CENTURY)
-							value *= 3155692600.0;
-					}
-					else {
-						long val = from_format & STORAGE_FORMAT.TIME_UNIT_MASK;
-						if (val == STORAGE_FORMAT.MICROSECOND)
-							value *= 1000.0;
-						else if (val == STORAGE_FORMAT.MILLISECOND)
-							value *= 1000000.0;
-						else if (val == STORAGE_FORMAT.MINUTE)
-							value /= 60.0;
-						else if (val == STORAGE_FORMAT.HOUR)
-							value /= (60.0 * 60.0);
-						else if (val == STORAGE_FORMAT.DAY)
-							value /= (24.0 * 60.0 * 60.0);
-						else if (val == STORAGE_FORMAT.WEEK)
-							value /= 604800.0;
-						else if (val == STORAGE_FORMAT.MONTH)
-							value /= 2629743.83;
-						else if (val == STORAGE_FORMAT.YEAR)
-							value /= 31556926.0;
-						else if (val == STORAGE_FORMAT.DECADE)
-							value /= 315569260.0;
-						else if (val == STORAGE_FORMAT.CENTURY)
-							value /= 3155692600.0;
-					}
-					if ((to_format & STORAGE_FORMAT.TIME_MULT) != 0) {
-						long val = to_format & STORAGE_FORMAT.TIME_UNIT_MASK;
-						if (val == STORAGE_FORMAT.MICROSECOND)
-							value *= 1000.0;
-						else if (val == STORAGE_FORMAT.MILLISECOND)
-							value *= 1000000.0;
-						else if (val == STORAGE_FORMAT.MINUTE)
-							value /= 60.0;
-						else if (val == STORAGE_FORMAT.HOUR)
-							value /= (60.0 * 60.0);
-						else if (val == STORAGE_FORMAT.DAY)
-							value /= (24.0 * 60.0 * 60.0);
-						else if (val == STORAGE_FORMAT.WEEK)
-							value /= 604800.0;
-						else if (val == STORAGE_FORMAT.MONTH)
-							value /= 2629743.83;
-						else if (val == STORAGE_FORMAT.YEAR)
-							value /= 31556926.0;
-						else if (val == STORAGE_FORMAT.DECADE)
-							value /= 315569260.0;
-						else if (val == STORAGE_FORMAT.CENTURY)
-							value /= 3155692600.0;
-					}
-					else {
-						long val = to_format & STORAGE_FORMAT.TIME_UNIT_MASK;
-						if (val == STORAGE_FORMAT.MICROSECOND)
-							value /= 1000.0;
-						else if (val == STORAGE_FORMAT.MILLISECOND)
-							value /= 1000000.0;
-						else if (val == STORAGE_FORMAT.MINUTE)
-							value *= 60.0;
-						else if (val == STORAGE_FORMAT.HOUR)
-							value *= (60.0 * 60.0);
-						else if (val == STORAGE_FORMAT.DAY)
-							value *= (24.0 * 60.0 * 60.0);
-						else if (val == STORAGE_FORMAT.WEEK)
-							value *= 604800.0;
-						else if (val == STORAGE_FORMAT.MONTH)
-							value *= 2629743.83;
-						else if (val == STORAGE_FORMAT.YEAR)
-							value *= 31556926.0;
-						else if (val == STORAGE_FORMAT.DECADE)
-							value *= 315569260.0;
-						else if (val == STORAGE_FORMAT.CENTURY)
-							value *= 3155692600.0;
-					}
-				}
+				if ((from_format & STORAGE_FORMAT.TIME_MASK) != (to_format & STORAGE_FORMAT.TIME_MASK))
+					scale = timeMultiplier(from_format) / timeMultiplier(to_format);
 			}
-			
+
 			from_format &= (~STORAGE_FORMAT.TIME_MASK);
 			to_format &= (~STORAGE_FORMAT.TIME_MASK);
 		}
-		
-		if ((from_format >= STORAGE.DISTANCE_START) && (from_format <= STORAGE.DISTANCE_END) &&
-				(to_format >= STORAGE.DISTANCE_START) && (to_format <= STORAGE.DISTANCE_END))
-			return value * distance_translation[(int)(from_format - STORAGE.DISTANCE_START)] /
-					distance_translation[(int)(to_format - STORAGE.DISTANCE_START)];
-		else if ((from_format >= STORAGE.TEMP_START) && (from_format <= STORAGE.TEMP_END) &&
-				(to_format >= STORAGE.TEMP_START) && (to_format <= STORAGE.TEMP_END)) {
-			double kelvin = (value + temp_translate1[(int)(from_format - STORAGE.TEMP_START)]) / temp_translate2[(int)(from_format - STORAGE.TEMP_START)];
-			return kelvin * temp_translate2[(int)(to_format - STORAGE.TEMP_START)] - temp_translate1[(int)(to_format - STORAGE.TEMP_START)];
-		}
-		else if ((from_format >= STORAGE.VOLUME_START) && (from_format <= STORAGE.VOLUME_END) &&
-				(to_format >= STORAGE.VOLUME_START) && (to_format <= STORAGE.VOLUME_END)) {
-			return value * volume_translation[(int)(from_format - STORAGE.VOLUME_START)] /
-					volume_translation[(int)(to_format - STORAGE.VOLUME_START)];
+
+		if (inRange(from_format, to_format, STORAGE.CUSTOM_START, STORAGE.CUSTOM_END)) {
+			ConversionPlan plan = UnitRegistry.plan(to, from, scale, to_format, from_format);
+			if (plan != null)
+				return plan;
 		}
-		else if ((from_format >= STORAGE.AREA_START) && (from_format <= STORAGE.AREA_END) &&
-				(to_format >= STORAGE.AREA_START) && (to_format <= STORAGE.AREA_END)) {
-			return value * area_translation[(int)(from_format - STORAGE.AREA_START)] /
-					area_translation[(int)(to_format - STORAGE.AREA_START)];
+		else if (inRange(from_format, to_format, STORAGE.DISTANCE_START, STORAGE.DISTANCE_END))
+			return linear(to, from, scale, distance_translation, from_format, to_format, STORAGE.DISTANCE_START);
+		else if (inRange(from_format, to_format, STORAGE.TEMP_START, STORAGE.TEMP_END)) {
+			int f = (int)(from_format - STORAGE.TEMP_START);
+			int t = (int)(to_format - STORAGE.TEMP_START);
+			double ratio = temp_translate2[t] / temp_translate2[f];
+			return ConversionPlan.affine(to, from, scale * ratio, temp_translate1[f] * ratio - temp_translate1[t]);
 		}
-		else if ((from_format >= STORAGE.PERCENT_START) && (from_format <= STORAGE.PERCENT_END) &&
-				(to_format >= STORAGE.PERCENT_START) && (to_format <= STORAGE.PERCENT_END)) {
+		else if (inRange(from_format, to_format, STORAGE.VOLUME_START, STORAGE.VOLUME_END))
+			return linear(to, from, scale, volume_translation, from_format, to_format, STORAGE.VOLUME_START);
+		else if (inRange(from_format, to_format, STORAGE.AREA_START, STORAGE.AREA_END))
+			return linear(to, from, scale, area_translation, from_format, to_format, STORAGE.AREA_START);
+		else if (inRange(from_format, to_format, STORAGE.PERCENT_START, STORAGE.PERCENT_END)) {
+			double offset = 0.0;
 			if (from_format != to_format) {
-				if (from_format == STORAGE_FORMAT.PERCENT) {
-					value *= 0.01;
-				}
+				//bring the value to a decimal
+				if (from_format == STORAGE_FORMAT.PERCENT)
+					scale *= 0.01;
 				else if (from_format == STORAGE_FORMAT.PERCENT_INVERT) {
-					value = (100.0 - value) * 0.01;
+					scale *= -0.01;
+					offset = 1.0;
 				}
 				else if (from_format == STORAGE_FORMAT.DECIMAL_INVERT) {
-					value = 1.0 - value;
+					scale = -scale;
+					offset = 1.0;
 				}
+				//and from a decimal to the requested format
 				if (to_format == STORAGE_FORMAT.PERCENT) {
-					value *= 100.0;
+					scale *= 100.0;
+					offset *= 100.0;
 				}
 				else if (to_format == STORAGE_FORMAT.PERCENT_INVERT) {
-					value = (100.0 - value) * 100.0;
+					scale *= -100.0;
+					offset = (100.0 - offset) * 100.0;
 				}
 				else if (to_format == STORAGE_FORMAT.DECIMAL_INVERT) {
-					value = 1.0 - value;
+					scale = -scale;
+					offset = 1.0 - offset;
 				}
 			}
-			return value;
-		}
-		else if ((from_format >= STORAGE.MASS_START) && (from_format <= STORAGE.MASS_END) &&
-				(to_format >= STORAGE.MASS_START) && (to_format <= STORAGE.MASS_END)) {
-			return value * mass_translation[(int)(from_format - STORAGE.MASS_START)] /
-					mass_translation[(int)(to_format - STORAGE.MASS_START)];
-		}
-		else if ((from_format >= STORAGE.ENERGY_START) && (from_format <= STORAGE.ENERGY_END) &&
-				(to_format >= STORAGE.ENERGY_START) && (to_format <= STORAGE.ENERGY_END)) {
-			return value * energy_translation[(int)(from_format - STORAGE.ENERGY_START)] /
-					energy_translation[(int)(to_format - STORAGE.ENERGY_START)];
-		}
-		else if ((from_format >= STORAGE.PRESSURE_START) && (from_format <= STORAGE.PRESSURE_END) &&
-				(to_format >= STORAGE.PRESSURE_START) && (to_format <= STORAGE.PRESSURE_END)) {
-			return value * pressure_translation[(int)(from_format - STORAGE.PRESSURE_START)] /
-					pressure_translation[(int)(to_format - STORAGE.PRESSURE_START)];
-		}
-		else if ((from_format >= STORAGE.INTENSITY_START) && (from_format <= STORAGE.INTENSITY_END) &&
-				(to_format >= STORAGE.INTENSITY_START) && (to_format <= STORAGE.INTENSITY_END)) {
-			return value * intensity_translation[(int)(from_format - STORAGE.INTENSITY_START)] /
-					intensity_translation[(int)(to_format - STORAGE.INTENSITY_START)];
-		}
-		else if ((from_format >= STORAGE.FUEL_CONSUMPTION_START) && (from_format <= STORAGE.FUEL_CONSUMPTION_END) &&
-				(to_format >= STORAGE.FUEL_CONSUMPTION_START) && (to_format <= STORAGE.FUEL_CONSUMPTION_END)) {
-			return value * consumption_translation[(int)(from_format - STORAGE.FUEL_CONSUMPTION_START)] /
-					consumption_translation[(int)(to_format - STORAGE.FUEL_CONSUMPTION_START)];
+			return ConversionPlan.affine(to, from, scale, offset);
 		}
+		else if (inRange(from_format, to_format, STORAGE.MASS_START, STORAGE.MASS_END))
+			return linear(to, from, scale, mass_translation, from_format, to_format, STORAGE.MASS_START);
+		else if (inRange(from_format, to_format, STORAGE.ENERGY_START, STORAGE.ENERGY_END))
+			return linear(to, from, scale, energy_translation, from_format, to_format, STORAGE.ENERGY_START);
+		else if (inRange(from_format, to_format, STORAGE.PRESSURE_START, STORAGE.PRESSURE_END))
+			return linear(to, from, scale, pressure_translation, from_format, to_format, STORAGE.PRESSURE_START);
+		else if (inRange(from_format, to_format, STORAGE.INTENSITY_START, STORAGE.INTENSITY_END))
+			return linear(to, from, scale, intensity_translation, from_format, to_format, STORAGE.INTENSITY_START);
+		else if (inRange(from_format, to_format, STORAGE.FUEL_CONSUMPTION_START, STORAGE.FUEL_CONSUMPTION_END))
+			return linear(to, from, scale, consumption_translation, from_format, to_format, STORAGE.FUEL_CONSUMPTION_START);
 		else if (((from_format & (~STORAGE_FORMAT.ANGLE_MASK)) == STORAGE_FORMAT.ANGLE) &&
 				((to_format & (~STORAGE_FORMAT.ANGLE_MASK)) == STORAGE_FORMAT.ANGLE)) {
 			if ((from_format & STORAGE_FORMAT.ANGLE_MASK) != (to_format & STORAGE_FORMAT.ANGLE_MASK)) {
-				if ((from_format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.DEGREE) {
-					value = DEGREE_TO_RADIAN(value);
-				}
-				else if ((from_format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.ARCSECOND) {
-					value = DEGREE_TO_RADIAN(value / 3600.0);
-				}
-				if ((from_format & STORAGE_FORMAT.ANGLE_ROTATION_MASK) == STORAGE_FORMAT.COMPASS) {
-					value = COMPASS_TO_CARTESIAN_RADIAN(value);
-				}
-				if ((to_format & STORAGE_FORMAT.ANGLE_ROTATION_MASK) == STORAGE_FORMAT.COMPASS) {
-					value = CARTESIAN_TO_COMPASS_RADIAN(value);
-				}
-				if ((to_format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.DEGREE) {
-					value = RADIAN_TO_DEGREE(value);
-				}
-				else if ((to_format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.ARCSECOND) {
-					value = RADIAN_TO_DEGREE(value) * 3600.0;
-				}
-			}
-			return value;
-		}
-		else if ((from_format >= STORAGE.TIME_START) && (from_format <= STORAGE.TIME_END) &&
-				(to_format >= STORAGE.TIME_START) && (to_format <= STORAGE.TIME_END)) {
-			if ((from_format & STORAGE_FORMAT.TIME_MULT) != 0) {
-				long v = from_format & STORAGE_FORMAT.TIME_UNIT_MASK;
-				if (v == STORAGE_FORMAT.MICROSECOND)
-					value /= 1000.0;
-				else if (v == STORAGE_FORMAT.MILLISECOND)
-					value /= 1000000.0;
-				else if (v == STORAGE_FORMAT.MINUTE)
-					value *= 60.0;
-				else if (v == STORAGE_FORMAT.HOUR)
-					value *= (60.0 * 60.0);
-				else if (v == STORAGE_FORMAT.DAY)
-					value *= (24.0 * 60.0 * 60.0);
-				else if (v == STORAGE_FORMAT.WEEK)
-					value *= 604800.0;
-				else if (v == STORAGE_FORMAT.MONTH)
-					value *= 2629743.83;
-				else if (v == STORAGE_FORMAT.YEAR)
-					value *= 315569260.0;
-				else if (v == STORAGE_FORMAT.DECADE)
-					value *= 315569260.0;
-				else if (v == STORAGE_FORMAT.CENTURY)
-					value *= 3155692600.0;
-			}
-			else {
-				long v = from_format & STORAGE_FORMAT.TIME_UNIT_MASK;
-				if (v == STORAGE_FORMAT.MICROSECOND)
-					value *= 1000.0;
-				else if (v == STORAGE_FORMAT.MILLISECOND)
-					value *= 1000000.0;
-				else if (v == STORAGE_FORMAT.MINUTE)
-					value /= 60.0;
-				else if (v == STORAGE_FORMAT.HOUR)
-					value /= (60.0 * 60.0);
-				else if (v == STORAGE_FORMAT.DAY)
-					value /= (24.0 * 60.0 * 60.0);
-				else if (v == STORAGE_FORMAT.WEEK)
-					value /= 604800.0;
-				else if (v == STORAGE_FORMAT.MONTH)
-					value /= 2629743.83;
-				else if (v == STORAGE_FORMAT.YEAR)
-					value /= 315569260.0;
-				else if (v == STORAGE_FORMAT.DECADE)
-					value /= 315569260.0;
-				else if (v == STORAGE_FORMAT.CENTURY)
-					value /= 3155692600.0;
-			}
-			if ((to_format & STORAGE_FORMAT.TIME_MULT) != 0) {
-				long v = to_format & STORAGE_FORMAT.TIME_UNIT_MASK;
-				if (v == STORAGE_FORMAT.MICROSECOND)
-					value *= 1000.0;
-				else if (v == STORAGE_FORMAT.MILLISECOND)
-					value *= 1000000.0;
-				else if (v == STORAGE_FORMAT.MINUTE)
-					value /= 60.0;
-				else if (v == STORAGE_FORMAT.HOUR)
-					value /= (60.0 * 60.0);
-				else if (v == STORAGE_FORMAT.DAY)
-					value /= (24.0 * 60.0 * 60.0);
-				else if (v == STORAGE_FORMAT.WEEK)
-					value /= 604800.0;
-				else if (v == STORAGE_FORMAT.MONTH)
-					value /= 2629743.83;
-				else if (v == STORAGE_FORMAT.YEAR)
-					value /= 315569260.0;
-				else if (v == STORAGE_FORMAT.DECADE)
-					value /= 315569260.0;
-				else if (v == STORAGE_FORMAT.CENTURY)
-					value /= 3155692600.0;
-			}
-			else {
-				long v = to_format & STORAGE_FORMAT.TIME_UNIT_MASK;
-				if (v == STORAGE_FORMAT.MICROSECOND)
-					value /= 1000.0;
-				else if (v == STORAGE_FORMAT.MILLISECOND)
-					value /= 1000000.0;
-				else if (v == STORAGE_FORMAT.MINUTE)
-					value *= 60.0;
-				else if (v == STORAGE_FORMAT.HOUR)
-					value *= (60.0 * 60.0);
-				else if (v == STORAGE_FORMAT.DAY)
-					value *= (24.0 * 60.0 * 60.0);
-				else if (v == STORAGE_FORMAT.WEEK)
-					value *= 604800.0;
-				else if (v == STORAGE_FORMAT.MONTH)
-					value *= 2629743.83;
-				else if (v == STORAGE_FORMAT.YEAR)
-					value *= 315569260.0;
-				else if (v == STORAGE_FORMAT.DECADE)
-					value *= 315569260.0;
-				else if (v == STORAGE_FORMAT.CENTURY)
-					value *= 3155692600.0;
+				boolean fromCompass = (from_format & STORAGE_FORMAT.ANGLE_ROTATION_MASK) == STORAGE_FORMAT.COMPASS;
+				boolean toCompass = (to_format & STORAGE_FORMAT.ANGLE_ROTATION_MASK) == STORAGE_FORMAT.COMPASS;
+				double toRadian = scale * angleToRadian(from_format);
+				double fromRadian = 1.0 / angleToRadian(to_format);
+				if (fromCompass || toCompass)
+					return ConversionPlan.angle(to, from, toRadian, fromCompass, toCompass, fromRadian);
+				scale = toRadian * fromRadian;
 			}
 		}
-		return value;
+		return ConversionPlan.affine(to, from, scale, 0.0);
+	}
+
+	/**
+	 * Get the compound form of a simple format that is the ratio of two other formats. Formats
+	 * that aren't derived from other formats are returned unchanged.
+	 */
+	private static long expandDerived(long format) {
+		if (format == STORAGE_FORMAT.KG_PER_M2)
+			return compound(STORAGE_FORMAT.KG, STORAGE_FORMAT.M2);
+		else if (format == STORAGE_FORMAT.TONS_PER_ACRE)
+			return compound(STORAGE_FORMAT.SHORT_TON, STORAGE_FORMAT.ACRE);
+		else if (format == STORAGE_FORMAT.KILOWATT_PER_M)
+			return compound(STORAGE_FORMAT.KILOWATT, STORAGE_FORMAT.M);
+		else if (format == STORAGE_FORMAT.BTU_FT_S)
+			return compound(STORAGE_FORMAT.BTU | STORAGE_FORMAT.SECOND, STORAGE_FORMAT.FOOT);
+		return format;
+	}
+
+	private static boolean inRange(long from_format, long to_format, long start, long end) {
+		return (from_format >= start) && (from_format <= end) && (to_format >= start) && (to_format <= end);
+	}
+
+	private static ConversionPlan linear(long to, long from, double scale, double table[], long from_format, long to_format, long start) {
+		return ConversionPlan.affine(to, from, scale * (table[(int)(from_format - start)] / table[(int)(to_format - start)]), 0.0);
+	}
+
+	/**
+	 * The multiplier that converts a value stored with the time component of <code>format</code> to seconds.
+	 */
+	private static double timeMultiplier(long format) {
+		double seconds = time_translation[(int)((format & STORAGE_FORMAT.TIME_UNIT_MASK) >> 16)];
+		if ((format & STORAGE_FORMAT.TIME_MULT) != 0)
+			return seconds;
+		return 1.0 / seconds;
+	}
+
+	/**
+	 * The multiplier that converts an angle stored in <code>format</code> to radians.
+	 */
+	private static double angleToRadian(long format) {
+		if ((format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.DEGREE)
+			return Math.PI / 180.0;
+		else if ((format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.ARCSECOND)
+			return Math.PI / (180.0 * 3600.0);
+		return 1.0;
 	}
 	
 	public static abstract class UnitSystem {
@@ -443,6 +571,8 @@ public class Convert {
 		public static final long FUEL_CONSUMPTION_END = 0x00000909;
 		public static final long INTENSITY_START = 0x00000910;
 		public static final long INTENSITY_END = 0x00000919;
+		public static final long CUSTOM_START = UnitRegistry.START;
+		public static final long CUSTOM_END = UnitRegistry.END;
 	}
 
 	public static abstract class STORAGE_FORMAT {
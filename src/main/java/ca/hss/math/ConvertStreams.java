@@ -0,0 +1,169 @@
+/**
+ * ConvertStreams.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.nio.DoubleBuffer;
+import java.util.Spliterator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+
+/**
+ * Unit conversion for <code>java.util.stream</code> pipelines. Every method resolves its
+ * conversion once, so elements are not re-dispatched on their unit codes.
+ */
+public abstract class ConvertStreams {
+	/**
+	 * Get an operator that converts values, for use with <code>DoubleStream.map</code>.
+	 *
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static DoubleUnaryOperator operator(long to_format, long from_format) {
+		return Convert.plan(to_format, from_format);
+	}
+
+	/**
+	 * A spliterator over an array that converts values as they are consumed. It splits the
+	 * array in halves without copying, so parallel streams divide the work evenly.
+	 *
+	 * @param values the values, in the from format
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static Spliterator.OfDouble spliterator(double[] values, long to_format, long from_format) {
+		return ConvertedDoubleView.of(values, to_format, from_format).spliterator();
+	}
+
+	/**
+	 * Stream the values of an array in another format.
+	 *
+	 * @param values the values, in the from format
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static DoubleStream stream(double[] values, long to_format, long from_format) {
+		return ConvertedDoubleView.of(values, to_format, from_format).stream();
+	}
+
+	/**
+	 * Stream a range of an array in another format.
+	 *
+	 * @param values the values, in the from format
+	 * @param off the index of the first value to stream
+	 * @param len the number of values to stream
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static DoubleStream stream(double[] values, int off, int len, long to_format, long from_format) {
+		return ConvertedDoubleView.of(values, off, len, to_format, from_format).stream();
+	}
+
+	/**
+	 * Stream the values between a buffer's position and limit in another format.
+	 *
+	 * @param values the values, in the from format
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static DoubleStream stream(DoubleBuffer values, long to_format, long from_format) {
+		return ConvertedDoubleView.of(values, to_format, from_format).stream();
+	}
+
+	/**
+	 * Stream the values of an array in another format in parallel.
+	 *
+	 * @param values the values, in the from format
+	 * @param to_format the format to convert values to
+	 * @param from_format the format values are stored in
+	 */
+	public static DoubleStream parallelStream(double[] values, long to_format, long from_format) {
+		return ConvertedDoubleView.of(values, to_format, from_format).parallelStream();
+	}
+
+	/**
+	 * A collector that sums values in the from format and converts the total once. For
+	 * affine conversions, like temperature, the offset is added once per value so the
+	 * result matches converting every value before summing.
+	 *
+	 * @param mapper extracts the value, in the from format, from each element
+	 * @param to_format the format to report the sum in
+	 * @param from_format the format of the extracted values
+	 */
+	public static <T> Collector<T, ?, Double> summing(ToDoubleFunction<? super T> mapper, long to_format, long from_format) {
+		final ConversionPlan plan = Convert.plan(to_format, from_format);
+		if (!plan.isAffine())
+			return Collectors.summingDouble(t -> plan.apply(mapper.applyAsDouble(t)));
+		return Collectors.collectingAndThen(summarizing(mapper, from_format), s -> s.getSum(to_format));
+	}
+
+	/**
+	 * A collector that averages values in the from format and converts the mean once. Like
+	 * <code>Collectors.averagingDouble</code> the result is zero if there are no elements.
+	 *
+	 * @param mapper extracts the value, in the from format, from each element
+	 * @param to_format the format to report the average in
+	 * @param from_format the format of the extracted values
+	 */
+	public static <T> Collector<T, ?, Double> averaging(ToDoubleFunction<? super T> mapper, long to_format, long from_format) {
+		final ConversionPlan plan = Convert.plan(to_format, from_format);
+		if (!plan.isAffine())
+			return Collectors.averagingDouble(t -> plan.apply(mapper.applyAsDouble(t)));
+		return Collectors.collectingAndThen(summarizing(mapper, from_format), s -> s.getAverage(to_format));
+	}
+
+	/**
+	 * A collector that aggregates values in the format they are stored in. The result can
+	 * report its statistics in any linearly related format.
+	 *
+	 * @param mapper extracts the value from each element
+	 * @param format the format of the extracted values
+	 */
+	public static <T> Collector<T, ?, UnitStatistics> summarizing(ToDoubleFunction<? super T> mapper, long format) {
+		return Collector.of(() -> new UnitStatistics(format), (s, t) -> s.accept(mapper.applyAsDouble(t)), UnitStatistics::combine,
+				Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	/**
+	 * Aggregate a stream of values in the format they are stored in. Parallel streams
+	 * aggregate each split separately and merge the results.
+	 *
+	 * @param values the values
+	 * @param format the format of the values
+	 */
+	public static UnitStatistics statistics(DoubleStream values, long format) {
+		return values.collect(() -> new UnitStatistics(format), UnitStatistics::accept, UnitStatistics::combine);
+	}
+
+	/**
+	 * Sum a stream of values in the from format and convert the total once.
+	 *
+	 * @param values the values, in the from format
+	 * @param to_format the format to report the sum in
+	 * @param from_format the format of the values
+	 */
+	public static double sum(DoubleStream values, long to_format, long from_format) {
+		ConversionPlan plan = Convert.plan(to_format, from_format);
+		if (!plan.isAffine())
+			return values.map(plan).sum();
+		return statistics(values, from_format).getSum(to_format);
+	}
+}
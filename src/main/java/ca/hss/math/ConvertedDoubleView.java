@@ -0,0 +1,231 @@
+/**
+ * ConvertedDoubleView.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A read-only view of an array or buffer of doubles, or a buffer of floats, that converts
+ * values to another format as they are read. The backing storage is never copied, so this is suited to
+ * reading a small number of values out of a large grid in a different unit.
+ */
+public final class ConvertedDoubleView {
+	private final double[] array;
+	private final DoubleBuffer buffer;
+	private final FloatBuffer floats;
+	private final int start;
+	private final int length;
+	private final ConversionPlan plan;
+
+	private ConvertedDoubleView(double[] array, DoubleBuffer buffer, FloatBuffer floats, int start, int length, ConversionPlan plan) {
+		this.array = array;
+		this.buffer = buffer;
+		this.floats = floats;
+		this.start = start;
+		this.length = length;
+		this.plan = plan;
+	}
+
+	/**
+	 * View an entire array in a different format.
+	 *
+	 * @param values the values to view
+	 * @param to_format the format values will be read in
+	 * @param from_format the format the values are stored in
+	 */
+	public static ConvertedDoubleView of(double[] values, long to_format, long from_format) {
+		return of(values, 0, values.length, to_format, from_format);
+	}
+
+	/**
+	 * View a range of an array in a different format.
+	 *
+	 * @param values the values to view
+	 * @param off the index of the first value in the view
+	 * @param len the number of values in the view
+	 * @param to_format the format values will be read in
+	 * @param from_format the format the values are stored in
+	 */
+	public static ConvertedDoubleView of(double[] values, int off, int len, long to_format, long from_format) {
+		ConversionPlan.checkRange(values.length, off, len);
+		return new ConvertedDoubleView(values, null, null, off, len, Convert.plan(to_format, from_format));
+	}
+
+	/**
+	 * View the values between a buffer's position and limit in a different format. Changes
+	 * to the position and limit of the buffer after the view is created don't affect the view.
+	 *
+	 * @param values the values to view
+	 * @param to_format the format values will be read in
+	 * @param from_format the format the values are stored in
+	 */
+	public static ConvertedDoubleView of(DoubleBuffer values, long to_format, long from_format) {
+		//a duplicate keeps its own position and limit, only the contents are shared
+		return new ConvertedDoubleView(null, values.duplicate(), null, values.position(), values.remaining(), Convert.plan(to_format, from_format));
+	}
+
+	/**
+	 * View the single precision values between a buffer's position and limit in a different
+	 * format. Values are widened to double as they are read. Changes to the position and limit
+	 * of the buffer after the view is created don't affect the view.
+	 *
+	 * @param values the values to view
+	 * @param to_format the format values will be read in
+	 * @param from_format the format the values are stored in
+	 */
+	public static ConvertedDoubleView of(FloatBuffer values, long to_format, long from_format) {
+		return new ConvertedDoubleView(null, null, values.duplicate(), values.position(), values.remaining(), Convert.plan(to_format, from_format));
+	}
+
+	/**
+	 * The conversion applied to the values.
+	 */
+	public ConversionPlan getPlan() {
+		return plan;
+	}
+
+	/**
+	 * The number of values in the view.
+	 */
+	public int size() {
+		return length;
+	}
+
+	/**
+	 * Get a single converted value.
+	 *
+	 * @param index the index of the value in the view
+	 */
+	public double get(int index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("index " + index + ", size " + length);
+		return plan.apply(raw(start + index));
+	}
+
+	/**
+	 * Read a range of converted values into an array.
+	 *
+	 * @param index the index of the first value in the view to read
+	 * @param dst the array to store the converted values in
+	 * @param dstOff the index in <code>dst</code> to store the first value at
+	 * @param len the number of values to read
+	 */
+	public void get(int index, double[] dst, int dstOff, int len) {
+		ConversionPlan.checkRange(length, index, len);
+		if (array != null)
+			plan.apply(array, start + index, dst, dstOff, len);
+		else if (buffer != null)
+			plan.apply(buffer, start + index, DoubleBuffer.wrap(dst), dstOff, len);
+		else {
+			ConversionPlan.checkRange(dst.length, dstOff, len);
+			for (int i = 0; i < len; i++)
+				dst[dstOff + i] = plan.apply(floats.get(start + index + i));
+		}
+	}
+
+	/**
+	 * A spliterator over the converted values. It splits evenly, so parallel streams divide
+	 * the work without copying.
+	 */
+	public Spliterator.OfDouble spliterator() {
+		return new ViewSpliterator(start, start + length);
+	}
+
+	/**
+	 * A sequential stream of the converted values.
+	 */
+	public DoubleStream stream() {
+		return StreamSupport.doubleStream(spliterator(), false);
+	}
+
+	/**
+	 * A parallel stream of the converted values.
+	 */
+	public DoubleStream parallelStream() {
+		return StreamSupport.doubleStream(spliterator(), true);
+	}
+
+	private double raw(int index) {
+		if (array != null)
+			return array[index];
+		if (buffer != null)
+			return buffer.get(index);
+		return floats.get(index);
+	}
+
+	private final class ViewSpliterator implements Spliterator.OfDouble {
+		private int index;
+		private final int fence;
+
+		ViewSpliterator(int index, int fence) {
+			this.index = index;
+			this.fence = fence;
+		}
+
+		@Override
+		public OfDouble trySplit() {
+			int lo = index, mid = (lo + fence) >>> 1;
+			if (lo >= mid)
+				return null;
+			index = mid;
+			return new ViewSpliterator(lo, mid);
+		}
+
+		@Override
+		public boolean tryAdvance(DoubleConsumer action) {
+			if (index >= fence)
+				return false;
+			action.accept(plan.apply(raw(index++)));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(DoubleConsumer action) {
+			int i = index, hi = fence;
+			index = hi;
+			if (array != null) {
+				for (; i < hi; i++)
+					action.accept(plan.apply(array[i]));
+			}
+			else if (buffer != null) {
+				for (; i < hi; i++)
+					action.accept(plan.apply(buffer.get(i)));
+			}
+			else {
+				for (; i < hi; i++)
+					action.accept(plan.apply(floats.get(i)));
+			}
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
+}
@@ -0,0 +1,487 @@
+/**
+ * CoordinateConverter.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.io.IOException;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * Converts batches of points between the coordinate formats in {@link STORAGE_FORMAT}:
+ * <ul>
+ * <li>{@link STORAGE_FORMAT#COORDINATE_DEGREE} - decimal degrees, x is longitude and y is latitude</li>
+ * <li>{@link STORAGE_FORMAT#COORDINATE_DEGREE_MINUTE} - packed degrees and minutes, ie. 4915.5 for 49&deg;15.5'</li>
+ * <li>{@link STORAGE_FORMAT#COORDINATE_DEGREE_MINUTE_SECOND} - packed degrees, minutes and seconds, ie. 491530 for 49&deg;15'30"</li>
+ * <li>{@link STORAGE_FORMAT#COORDINATE_UTM} - easting and northing in metres in this converter's zone</li>
+ * <li>{@link STORAGE_FORMAT#COORDINATE_RELATIVE_DISTANCE} - metres east and north of this converter's origin, in its zone</li>
+ * </ul>
+ *
+ * Points are held in separate primitive x and y arrays. The transverse mercator projection
+ * uses the WGS84 ellipsoid and a fourth order Kr&uuml;ger series, accurate to better than a
+ * millimetre within a zone. The constants for the zone are computed when the converter is
+ * created. Converters are immutable and may be shared between threads.
+ */
+public final class CoordinateConverter {
+	private static final double A = 6378137.0;
+	private static final double F = 1.0 / 298.257223563;
+	private static final double K0 = 0.9996;
+	private static final double FALSE_EASTING = 500000.0;
+	private static final double FALSE_NORTHING_SOUTH = 10000000.0;
+
+	private static final double N = F / (2.0 - F);
+	private static final double E = java.lang.Math.sqrt(F * (2.0 - F));
+	private static final double N2 = N * N, N3 = N2 * N, N4 = N3 * N;
+	private static final double KA = K0 * A / (1.0 + N) * (1.0 + N2 / 4.0 + N4 / 64.0);
+	private static final double ALPHA1 = N / 2.0 - 2.0 * N2 / 3.0 + 5.0 * N3 / 16.0 + 41.0 * N4 / 180.0;
+	private static final double ALPHA2 = 13.0 * N2 / 48.0 - 3.0 * N3 / 5.0 + 557.0 * N4 / 1440.0;
+	private static final double ALPHA3 = 61.0 * N3 / 240.0 - 103.0 * N4 / 140.0;
+	private static final double ALPHA4 = 49561.0 * N4 / 161280.0;
+	private static final double BETA1 = N / 2.0 - 2.0 * N2 / 3.0 + 37.0 * N3 / 96.0 - N4 / 360.0;
+	private static final double BETA2 = N2 / 48.0 + N3 / 15.0 - 437.0 * N4 / 1440.0;
+	private static final double BETA3 = 17.0 * N3 / 480.0 - 37.0 * N4 / 840.0;
+	private static final double BETA4 = 4397.0 * N4 / 161280.0;
+	private static final double DELTA1 = 2.0 * N - 2.0 * N2 / 3.0 - 2.0 * N3 + 116.0 * N4 / 45.0;
+	private static final double DELTA2 = 7.0 * N2 / 3.0 - 8.0 * N3 / 5.0 - 227.0 * N4 / 45.0;
+	private static final double DELTA3 = 56.0 * N3 / 15.0 - 136.0 * N4 / 35.0;
+	private static final double DELTA4 = 4279.0 * N4 / 630.0;
+
+	private static final double DEG = java.lang.Math.PI / 180.0;
+
+	private final int zone;
+	private final boolean north;
+	private final double centralMeridian;
+	private final double falseNorthing;
+	private final double originEasting;
+	private final double originNorthing;
+
+	/**
+	 * @param zone the UTM zone, 1 to 60
+	 * @param north true for the northern hemisphere
+	 */
+	public CoordinateConverter(int zone, boolean north) {
+		this(zone, north, 0.0, 0.0);
+	}
+
+	/**
+	 * @param zone the UTM zone, 1 to 60
+	 * @param north true for the northern hemisphere
+	 * @param originEasting the easting that relative distances are measured from
+	 * @param originNorthing the northing that relative distances are measured from
+	 */
+	public CoordinateConverter(int zone, boolean north, double originEasting, double originNorthing) {
+		if (zone < 1 || zone > 60)
+			throw new IllegalArgumentException("zone");
+		this.zone = zone;
+		this.north = north;
+		this.centralMeridian = (zone * 6 - 183) * DEG;
+		this.falseNorthing = north ? 0.0 : FALSE_NORTHING_SOUTH;
+		this.originEasting = originEasting;
+		this.originNorthing = originNorthing;
+	}
+
+	/**
+	 * Get a converter for the UTM zone that contains a location.
+	 *
+	 * @param longitude the longitude in decimal degrees
+	 * @param latitude the latitude in decimal degrees
+	 */
+	public static CoordinateConverter forLocation(double longitude, double latitude) {
+		return new CoordinateConverter(zoneOf(longitude), latitude >= 0.0);
+	}
+
+	/**
+	 * The standard UTM zone that contains a longitude.
+	 */
+	public static int zoneOf(double longitude) {
+		int zone = (int)java.lang.Math.floor((longitude + 180.0) / 6.0) + 1;
+		return java.lang.Math.max(1, java.lang.Math.min(60, zone));
+	}
+
+	public int getZone() {
+		return zone;
+	}
+
+	public boolean isNorth() {
+		return north;
+	}
+
+	/**
+	 * Get a converter for the same zone that measures relative distances from a new origin.
+	 */
+	public CoordinateConverter withOrigin(double easting, double northing) {
+		return new CoordinateConverter(zone, north, easting, northing);
+	}
+
+	/**
+	 * Convert a range of points. The source and destination arrays may be the same.
+	 *
+	 * @param srcX longitudes, eastings or distances east
+	 * @param srcY latitudes, northings or distances north
+	 * @param srcOff the index of the first point to convert
+	 * @param dstX the array to store the converted x values in
+	 * @param dstY the array to store the converted y values in
+	 * @param dstOff the index to store the first converted point at
+	 * @param len the number of points to convert
+	 * @param to_format one of the COORDINATE_* formats
+	 * @param from_format one of the COORDINATE_* formats
+	 */
+	public void convert(double[] srcX, double[] srcY, int srcOff, double[] dstX, double[] dstY, int dstOff, int len, long to_format, long from_format) {
+		ConversionPlan.checkRange(srcX.length, srcOff, len);
+		ConversionPlan.checkRange(srcY.length, srcOff, len);
+		ConversionPlan.checkRange(dstX.length, dstOff, len);
+		ConversionPlan.checkRange(dstY.length, dstOff, len);
+		checkFormat(to_format);
+		checkFormat(from_format);
+		for (int i = 0; i < len; i++) {
+			double x = srcX[srcOff + i], y = srcY[srcOff + i];
+			if (from_format == to_format) {
+				dstX[dstOff + i] = x;
+				dstY[dstOff + i] = y;
+				continue;
+			}
+			//first bring the point to decimal degrees or UTM
+			if (from_format == STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE) {
+				x = unpackDegreeMinute(x);
+				y = unpackDegreeMinute(y);
+			}
+			else if (from_format == STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE_SECOND) {
+				x = unpackDegreeMinuteSecond(x);
+				y = unpackDegreeMinuteSecond(y);
+			}
+			else if (from_format == STORAGE_FORMAT.COORDINATE_RELATIVE_DISTANCE) {
+				x += originEasting;
+				y += originNorthing;
+			}
+			boolean projected = from_format == STORAGE_FORMAT.COORDINATE_UTM || from_format == STORAGE_FORMAT.COORDINATE_RELATIVE_DISTANCE;
+			boolean toProjected = to_format == STORAGE_FORMAT.COORDINATE_UTM || to_format == STORAGE_FORMAT.COORDINATE_RELATIVE_DISTANCE;
+			if (projected && !toProjected) {
+				double xi = (y - falseNorthing) / KA;
+				double eta = (x - FALSE_EASTING) / KA;
+				double xi1 = xi
+						- BETA1 * java.lang.Math.sin(2.0 * xi) * java.lang.Math.cosh(2.0 * eta)
+						- BETA2 * java.lang.Math.sin(4.0 * xi) * java.lang.Math.cosh(4.0 * eta)
+						- BETA3 * java.lang.Math.sin(6.0 * xi) * java.lang.Math.cosh(6.0 * eta)
+						- BETA4 * java.lang.Math.sin(8.0 * xi) * java.lang.Math.cosh(8.0 * eta);
+				double eta1 = eta
+						- BETA1 * java.lang.Math.cos(2.0 * xi) * java.lang.Math.sinh(2.0 * eta)
+						- BETA2 * java.lang.Math.cos(4.0 * xi) * java.lang.Math.sinh(4.0 * eta)
+						- BETA3 * java.lang.Math.cos(6.0 * xi) * java.lang.Math.sinh(6.0 * eta)
+						- BETA4 * java.lang.Math.cos(8.0 * xi) * java.lang.Math.sinh(8.0 * eta);
+				double chi = java.lang.Math.asin(java.lang.Math.sin(xi1) / java.lang.Math.cosh(eta1));
+				x = (centralMeridian + java.lang.Math.atan2(java.lang.Math.sinh(eta1), java.lang.Math.cos(xi1))) / DEG;
+				y = (chi
+						+ DELTA1 * java.lang.Math.sin(2.0 * chi)
+						+ DELTA2 * java.lang.Math.sin(4.0 * chi)
+						+ DELTA3 * java.lang.Math.sin(6.0 * chi)
+						+ DELTA4 * java.lang.Math.sin(8.0 * chi)) / DEG;
+			}
+			else if (!projected && toProjected) {
+				double lambda = x * DEG - centralMeridian;
+				double sinPhi = java.lang.Math.sin(y * DEG);
+				double t = java.lang.Math.sinh(atanh(sinPhi) - E * atanh(E * sinPhi));
+				double xi = java.lang.Math.atan2(t, java.lang.Math.cos(lambda));
+				double eta = atanh(java.lang.Math.sin(lambda) / java.lang.Math.sqrt(1.0 + t * t));
+				x = FALSE_EASTING + KA * (eta
+						+ ALPHA1 * java.lang.Math.cos(2.0 * xi) * java.lang.Math.sinh(2.0 * eta)
+						+ ALPHA2 * java.lang.Math.cos(4.0 * xi) * java.lang.Math.sinh(4.0 * eta)
+						+ ALPHA3 * java.lang.Math.cos(6.0 * xi) * java.lang.Math.sinh(6.0 * eta)
+						+ ALPHA4 * java.lang.Math.cos(8.0 * xi) * java.lang.Math.sinh(8.0 * eta));
+				y = falseNorthing + KA * (xi
+						+ ALPHA1 * java.lang.Math.sin(2.0 * xi) * java.lang.Math.cosh(2.0 * eta)
+						+ ALPHA2 * java.lang.Math.sin(4.0 * xi) * java.lang.Math.cosh(4.0 * eta)
+						+ ALPHA3 * java.lang.Math.sin(6.0 * xi) * java.lang.Math.cosh(6.0 * eta)
+						+ ALPHA4 * java.lang.Math.sin(8.0 * xi) * java.lang.Math.cosh(8.0 * eta));
+			}
+			//then to the requested format
+			if (to_format == STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE) {
+				x = packDegreeMinute(x);
+				y = packDegreeMinute(y);
+			}
+			else if (to_format == STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE_SECOND) {
+				x = packDegreeMinuteSecond(x);
+				y = packDegreeMinuteSecond(y);
+			}
+			else if (to_format == STORAGE_FORMAT.COORDINATE_RELATIVE_DISTANCE) {
+				x -= originEasting;
+				y -= originNorthing;
+			}
+			dstX[dstOff + i] = x;
+			dstY[dstOff + i] = y;
+		}
+	}
+
+	/**
+	 * Convert every point in place.
+	 *
+	 * @see #convert(double[], double[], int, double[], double[], int, int, long, long)
+	 */
+	public void convert(double[] x, double[] y, long to_format, long from_format) {
+		if (x.length != y.length)
+			throw new IllegalArgumentException("x and y must be the same length");
+		convert(x, y, 0, x, y, 0, x.length, to_format, from_format);
+	}
+
+	/**
+	 * Convert every point in place, splitting the work across a pool for large point sets.
+	 *
+	 * @see #convert(double[], double[], int, double[], double[], int, int, long, long)
+	 * @return how the work was split
+	 */
+	public ParallelConverter.Partition convert(final double[] x, final double[] y, final long to_format, final long from_format, ParallelConverter parallel) {
+		if (x.length != y.length)
+			throw new IllegalArgumentException("x and y must be the same length");
+		checkFormat(to_format);
+		checkFormat(from_format);
+		return parallel.run(x.length, (start, end) -> convert(x, y, start, x, y, start, end - start, to_format, from_format));
+	}
+
+	/**
+	 * Project a range of points from decimal degrees to UTM.
+	 *
+	 * @param lon longitudes in decimal degrees
+	 * @param lat latitudes in decimal degrees
+	 * @param srcOff the index of the first point to project
+	 * @param easting the array to store eastings in, may be <code>lon</code>
+	 * @param northing the array to store northings in, may be <code>lat</code>
+	 * @param dstOff the index to store the first projected point at
+	 * @param len the number of points to project
+	 */
+	public void toUtm(double[] lon, double[] lat, int srcOff, double[] easting, double[] northing, int dstOff, int len) {
+		convert(lon, lat, srcOff, easting, northing, dstOff, len, STORAGE_FORMAT.COORDINATE_UTM, STORAGE_FORMAT.COORDINATE_DEGREE);
+	}
+
+	/**
+	 * Unproject a range of points from UTM to decimal degrees.
+	 *
+	 * @param easting eastings in metres
+	 * @param northing northings in metres
+	 * @param srcOff the index of the first point to unproject
+	 * @param lon the array to store longitudes in, may be <code>easting</code>
+	 * @param lat the array to store latitudes in, may be <code>northing</code>
+	 * @param dstOff the index to store the first point at
+	 * @param len the number of points to unproject
+	 */
+	public void toDegrees(double[] easting, double[] northing, int srcOff, double[] lon, double[] lat, int dstOff, int len) {
+		convert(easting, northing, srcOff, lon, lat, dstOff, len, STORAGE_FORMAT.COORDINATE_DEGREE, STORAGE_FORMAT.COORDINATE_UTM);
+	}
+
+	private static double atanh(double x) {
+		return 0.5 * java.lang.Math.log((1.0 + x) / (1.0 - x));
+	}
+
+	private static void checkFormat(long format) {
+		if (format < STORAGE_FORMAT.COORDINATE_DEGREE || format > STORAGE_FORMAT.COORDINATE_RELATIVE_DISTANCE)
+			throw new IllegalArgumentException("Not a coordinate format: 0x" + Long.toHexString(format));
+	}
+
+	/**
+	 * Convert decimal degrees to packed degrees and minutes (ie. 49.2583 to 4915.5).
+	 */
+	public static double packDegreeMinute(double degrees) {
+		double abs = java.lang.Math.abs(degrees);
+		double d = java.lang.Math.floor(abs);
+		double packed = d * 100.0 + (abs - d) * 60.0;
+		return degrees < 0 ? -packed : packed;
+	}
+
+	/**
+	 * Convert packed degrees and minutes (ie. 4915.5) to decimal degrees.
+	 */
+	public static double unpackDegreeMinute(double packed) {
+		double abs = java.lang.Math.abs(packed);
+		double d = java.lang.Math.floor(abs / 100.0);
+		double degrees = d + (abs - d * 100.0) / 60.0;
+		return packed < 0 ? -degrees : degrees;
+	}
+
+	/**
+	 * Convert decimal degrees to packed degrees, minutes and seconds (ie. 49.2583 to 491530).
+	 */
+	public static double packDegreeMinuteSecond(double degrees) {
+		double abs = java.lang.Math.abs(degrees);
+		double d = java.lang.Math.floor(abs);
+		double minutes = (abs - d) * 60.0;
+		double m = java.lang.Math.floor(minutes);
+		double packed = d * 10000.0 + m * 100.0 + (minutes - m) * 60.0;
+		return degrees < 0 ? -packed : packed;
+	}
+
+	/**
+	 * Convert packed degrees, minutes and seconds (ie. 491530) to decimal degrees.
+	 */
+	public static double unpackDegreeMinuteSecond(double packed) {
+		double abs = java.lang.Math.abs(packed);
+		double d = java.lang.Math.floor(abs / 10000.0);
+		double m = java.lang.Math.floor((abs - d * 10000.0) / 100.0);
+		double degrees = d + m / 60.0 + (abs - d * 10000.0 - m * 100.0) / 3600.0;
+		return packed < 0 ? -degrees : degrees;
+	}
+
+	/**
+	 * Format an angle in decimal degrees as degrees and minutes or degrees, minutes and seconds,
+	 * ie. <code>49&deg;15'30.0"N</code>.
+	 *
+	 * @param out where to write the formatted value
+	 * @param degrees the value in decimal degrees
+	 * @param format {@link STORAGE_FORMAT#COORDINATE_DEGREE_MINUTE}, {@link STORAGE_FORMAT#COORDINATE_DEGREE_MINUTE_SECOND}
+	 * or {@link STORAGE_FORMAT#COORDINATE_DEGREE}
+	 * @param decimals the number of decimal places on the last component
+	 * @param latitude true to append N or S, false to append E or W
+	 */
+	public static void format(Appendable out, double degrees, long format, int decimals, boolean latitude) throws IOException {
+		double abs = java.lang.Math.abs(degrees);
+		double scale = 1.0;
+		for (int i = 0; i < decimals; i++)
+			scale *= 10.0;
+		//round once on the smallest unit so carries propagate (ie. 59.99" becomes 1')
+		long units;
+		if (format == STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE)
+			units = java.lang.Math.round(abs * 60.0 * scale);
+		else if (format == STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE_SECOND)
+			units = java.lang.Math.round(abs * 3600.0 * scale);
+		else
+			units = java.lang.Math.round(abs * scale);
+		long perUnit = (long)scale;
+		long last = units % perUnit;
+		long whole = units / perUnit;
+		if (format == STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE) {
+			out.append(Long.toString(whole / 60)).append('\u00b0');
+			appendComponent(out, whole % 60, last, decimals);
+			out.append('\'');
+		}
+		else if (format == STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE_SECOND) {
+			out.append(Long.toString(whole / 3600)).append('\u00b0');
+			appendComponent(out, (whole / 60) % 60, 0, 0);
+			out.append('\'');
+			appendComponent(out, whole % 60, last, decimals);
+			out.append('"');
+		}
+		else {
+			appendComponent(out, whole, last, decimals);
+			out.append('\u00b0');
+		}
+		if (latitude)
+			out.append(degrees < 0 ? 'S' : 'N');
+		else
+			out.append(degrees < 0 ? 'W' : 'E');
+	}
+
+	/**
+	 * Format an angle in decimal degrees as degrees and minutes or degrees, minutes and seconds.
+	 *
+	 * @see #format(Appendable, double, long, int, boolean)
+	 */
+	public static String format(double degrees, long format, int decimals, boolean latitude) {
+		StringBuilder sb = new StringBuilder(16);
+		try {
+			format(sb, degrees, format, decimals, latitude);
+		}
+		catch (IOException e) { }
+		return sb.toString();
+	}
+
+	private static void appendComponent(Appendable out, long whole, long fraction, int decimals) throws IOException {
+		out.append(Long.toString(whole));
+		if (decimals > 0) {
+			out.append('.');
+			String digits = Long.toString(fraction);
+			for (int i = digits.length(); i < decimals; i++)
+				out.append('0');
+			out.append(digits);
+		}
+	}
+
+	/**
+	 * Parse an angle written as decimal degrees, degrees and minutes, or degrees, minutes and seconds.
+	 * Components may be separated by whitespace, colons or the symbols &deg; ' " (or d m s). Only the last
+	 * component may have a fraction, and minutes and seconds must be less than 60. A hemisphere letter (N, S,
+	 * E or W) may come before the first component or after the last one. S and W, or a leading minus sign,
+	 * make the value negative. A sign can't be combined with a hemisphere letter. Hemisphere letters must be
+	 * upper case, a lower case s is read as a seconds marker.
+	 *
+	 * @param text the text to parse
+	 * @return the angle in decimal degrees or {@link Double#NaN} if the text couldn't be parsed
+	 */
+	public static double parse(CharSequence text) {
+		int i = 0, end = text.length();
+		boolean negative = false, signed = false;
+		double result = 0.0;
+		double divisor = 1.0;
+		int components = 0;
+		boolean hemisphere = false, trailing = false, fractional = false;
+		while (i < end && Character.isWhitespace(text.charAt(i)))
+			i++;
+		if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+			negative = text.charAt(i) == '-';
+			signed = true;
+			i++;
+		}
+		while (i < end) {
+			char c = text.charAt(i);
+			if ((c >= '0' && c <= '9') || c == '.') {
+				//a trailing hemisphere letter or a fraction has to be on the last component
+				if (components == 3 || fractional || trailing)
+					return Double.NaN;
+				double value = 0.0, fraction = 0.0;
+				boolean digits = false;
+				for (; i < end; i++) {
+					c = text.charAt(i);
+					if (c >= '0' && c <= '9') {
+						digits = true;
+						if (fractional) {
+							fraction /= 10.0;
+							value += (c - '0') * fraction;
+						}
+						else
+							value = value * 10.0 + (c - '0');
+					}
+					else if (c == '.' && !fractional) {
+						fractional = true;
+						fraction = 1.0;
+					}
+					else
+						break;
+				}
+				if (!digits || (components > 0 && value >= 60.0))
+					return Double.NaN;
+				result += value / divisor;
+				divisor *= 60.0;
+				components++;
+			}
+			else if (c == 'N' || c == 'E' || c == 'S' || c == 'W') {
+				//-49 S is ambiguous, don't guess which way was meant
+				if (hemisphere || signed)
+					return Double.NaN;
+				hemisphere = true;
+				trailing = components > 0;
+				if (c == 'S' || c == 'W')
+					negative = true;
+				i++;
+			}
+			else if (Character.isWhitespace(c) || c == ':' || c == '\u00b0' || c == '\'' || c == '"' ||
+					c == 'd' || c == 'm' || c == 's' || c == '\u2032' || c == '\u2033')
+				i++;
+			else
+				return Double.NaN;
+		}
+		if (components == 0)
+			return Double.NaN;
+		return negative ? -result : result;
+	}
+}
@@ -18,6 +18,9 @@
 
 package ca.hss.math;
 
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
 import ca.hss.annotations.Source;
 
 /**
@@ -69,4 +72,216 @@ public class General {
 	public static double RADIAN_TO_DEGREE(double x) {
 		return ((x*180.0)*(1.0/Math.PI));
 	}	
+
+	/**
+	 * Normalize a range of angles in degrees to [0, 360) in place.
+	 */
+	public static void NORMALIZE_ANGLE_DEGREE(double[] values, int off, int len) {
+		ANGLE_CALCULATE_BASE(360.0, values, off, values, off, len);
+	}
+
+	/**
+	 * Normalize a range of angles in degrees to [0, 360) in place.
+	 */
+	public static void NORMALIZE_ANGLE_DEGREE(float[] values, int off, int len) {
+		ANGLE_CALCULATE_BASE(360.0, values, off, values, off, len);
+	}
+
+	/**
+	 * Normalize a range of angles in radians to [0, 2&pi;) in place.
+	 */
+	public static void NORMALIZE_ANGLE_RADIAN(double[] values, int off, int len) {
+		ANGLE_CALCULATE_BASE(TWO_PI, values, off, values, off, len);
+	}
+
+	/**
+	 * Normalize a range of angles in radians to [0, 2&pi;) in place.
+	 */
+	public static void NORMALIZE_ANGLE_RADIAN(float[] values, int off, int len) {
+		ANGLE_CALCULATE_BASE(TWO_PI, values, off, values, off, len);
+	}
+
+	/**
+	 * Normalize the angles in degrees between the buffer's position and limit in place.
+	 */
+	public static void NORMALIZE_ANGLE_DEGREE(DoubleBuffer values) {
+		affine(1.0, 0.0, 360.0, values, values.position(), values, values.position(), values.remaining());
+	}
+
+	/**
+	 * Normalize the angles in degrees between the buffer's position and limit in place.
+	 */
+	public static void NORMALIZE_ANGLE_DEGREE(FloatBuffer values) {
+		affine(1.0, 0.0, 360.0, values, values.position(), values, values.position(), values.remaining());
+	}
+
+	/**
+	 * Normalize the angles in radians between the buffer's position and limit in place.
+	 */
+	public static void NORMALIZE_ANGLE_RADIAN(DoubleBuffer values) {
+		affine(1.0, 0.0, TWO_PI, values, values.position(), values, values.position(), values.remaining());
+	}
+
+	/**
+	 * Normalize the angles in radians between the buffer's position and limit in place.
+	 */
+	public static void NORMALIZE_ANGLE_RADIAN(FloatBuffer values) {
+		affine(1.0, 0.0, TWO_PI, values, values.position(), values, values.position(), values.remaining());
+	}
+
+	/**
+	 * Reduce a range of values to [0, base). Unlike the scalar version this has no branches,
+	 * it computes <code>x - base * floor(x / base)</code> so the loop can be vectorized. The
+	 * result is always less than base; the scalar version returns base for negative
+	 * multiples of base and for negative values so small that adding base rounds to base,
+	 * this reduces both to 0.
+	 *
+	 * @param base the base to reduce values to
+	 * @param src the values to reduce
+	 * @param srcOff the index of the first value in <code>src</code>
+	 * @param dst the array to store the reduced values in, may be <code>src</code>
+	 * @param dstOff the index in <code>dst</code> to store the first value at
+	 * @param len the number of values
+	 */
+	public static void ANGLE_CALCULATE_BASE(double base, double[] src, int srcOff, double[] dst, int dstOff, int len) {
+		affine(1.0, 0.0, base, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Reduce a range of single precision values to [0, base).
+	 *
+	 * @see #ANGLE_CALCULATE_BASE(double, double[], int, double[], int, int)
+	 */
+	public static void ANGLE_CALCULATE_BASE(double base, float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		affine(1.0, 0.0, base, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of cartesian angles in degrees to compass angles.
+	 */
+	public static void CARTESIAN_TO_COMPASS_DEGREE(double[] src, int srcOff, double[] dst, int dstOff, int len) {
+		affine(-1.0, 450.0, 360.0, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of cartesian angles in degrees to compass angles.
+	 */
+	public static void CARTESIAN_TO_COMPASS_DEGREE(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		affine(-1.0, 450.0, 360.0, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of cartesian angles in radians to compass angles.
+	 */
+	public static void CARTESIAN_TO_COMPASS_RADIAN(double[] src, int srcOff, double[] dst, int dstOff, int len) {
+		affine(-1.0, Math.PI * 2.5, TWO_PI, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of cartesian angles in radians to compass angles.
+	 */
+	public static void CARTESIAN_TO_COMPASS_RADIAN(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		affine(-1.0, Math.PI * 2.5, TWO_PI, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of compass angles in degrees to cartesian angles.
+	 */
+	public static void COMPASS_TO_CARTESIAN_DEGREE(double[] src, int srcOff, double[] dst, int dstOff, int len) {
+		affine(-1.0, 450.0, 360.0, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of compass angles in degrees to cartesian angles.
+	 */
+	public static void COMPASS_TO_CARTESIAN_DEGREE(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		affine(-1.0, 450.0, 360.0, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of compass angles in radians to cartesian angles.
+	 */
+	public static void COMPASS_TO_CARTESIAN_RADIAN(double[] src, int srcOff, double[] dst, int dstOff, int len) {
+		affine(-1.0, Math.PI * 2.5, TWO_PI, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Convert a range of compass angles in radians to cartesian angles.
+	 */
+	public static void COMPASS_TO_CARTESIAN_RADIAN(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		affine(-1.0, Math.PI * 2.5, TWO_PI, src, srcOff, dst, dstOff, len);
+	}
+
+	/**
+	 * Reduce a value to [0, base). A tiny negative value rounds up to exactly base after
+	 * subtracting the floor, the select maps it to 0 and compiles to a conditional move
+	 * rather than a branch.
+	 */
+	static double reduce(double x, double base) {
+		double r = x - base * java.lang.Math.floor(x / base);
+		return r >= base ? r - base : r;
+	}
+
+	/**
+	 * {@link #reduce(double, double)} rounded to single precision, which can round up to base again.
+	 */
+	static float reduce(double x, double base, float fbase) {
+		float r = (float)reduce(x, base);
+		return r >= fbase ? 0.0f : r;
+	}
+
+	/**
+	 * Compute <code>a * x + b</code> reduced to [0, base) for a range of values. Every angle
+	 * conversion above is this with different constants, ie. cartesian to compass degrees is
+	 * <code>a = -1, b = 450, base = 360</code>.
+	 */
+	static void affine(double a, double b, double base, double[] src, int srcOff, double[] dst, int dstOff, int len) {
+		ConversionPlan.checkRange(src.length, srcOff, len);
+		ConversionPlan.checkRange(dst.length, dstOff, len);
+		for (int i = 0; i < len; i++) {
+			double y = a * src[srcOff + i] + b;
+			dst[dstOff + i] = reduce(y, base);
+		}
+	}
+
+	/**
+	 * Compute <code>a * x + b</code> reduced to [0, base) for a range of single precision values.
+	 * The arithmetic is done in double precision.
+	 */
+	static void affine(double a, double b, double base, float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		ConversionPlan.checkRange(src.length, srcOff, len);
+		ConversionPlan.checkRange(dst.length, dstOff, len);
+		final float fbase = (float)base;
+		for (int i = 0; i < len; i++) {
+			double y = a * src[srcOff + i] + b;
+			dst[dstOff + i] = reduce(y, base, fbase);
+		}
+	}
+
+	static void affine(double a, double b, double base, DoubleBuffer src, int srcIndex, DoubleBuffer dst, int dstIndex, int len) {
+		if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+			affine(a, b, base, src.array(), src.arrayOffset() + srcIndex, dst.array(), dst.arrayOffset() + dstIndex, len);
+			return;
+		}
+		ConversionPlan.checkRange(src.limit(), srcIndex, len);
+		ConversionPlan.checkRange(dst.limit(), dstIndex, len);
+		for (int i = 0; i < len; i++) {
+			double y = a * src.get(srcIndex + i) + b;
+			dst.put(dstIndex + i, reduce(y, base));
+		}
+	}
+
+	static void affine(double a, double b, double base, FloatBuffer src, int srcIndex, FloatBuffer dst, int dstIndex, int len) {
+		if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+			affine(a, b, base, src.array(), src.arrayOffset() + srcIndex, dst.array(), dst.arrayOffset() + dstIndex, len);
+			return;
+		}
+		ConversionPlan.checkRange(src.limit(), srcIndex, len);
+		ConversionPlan.checkRange(dst.limit(), dstIndex, len);
+		final float fbase = (float)base;
+		for (int i = 0; i < len; i++) {
+			double y = a * src.get(srcIndex + i) + b;
+			dst.put(dstIndex + i, reduce(y, base, fbase));
+		}
+	}
 }
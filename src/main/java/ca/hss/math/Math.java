@@ -18,35 +18,19 @@
 
 package ca.hss.math;
 
+import ca.hss.text.NumberScanner;
+
 public class Math {
 	public static boolean isDouble(String val) {
-		try {
-			Double.parseDouble(val);
-		}
-		catch(NumberFormatException ex) {
-			return false;
-		}
-		return true;
+		return NumberScanner.isDouble(val);
 	}
 	
 	public static boolean isInt(String val) {
-		try {
-			Integer.parseInt(val);
-		}
-		catch(NumberFormatException ex) {
-			return false;
-		}
-		return true;
+		return NumberScanner.isInt(val);
 	}
 	
 	public static boolean isInt(char val) {
-		try {
-			Integer.parseInt(String.valueOf(val));
-		}
-		catch(NumberFormatException ex) {
-			return false;
-		}
-		return true;
+		return NumberScanner.isDigit(val);
 	}
 	
 	public static final double PI = java.lang.Math.PI;
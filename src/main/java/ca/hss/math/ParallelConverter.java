@@ -0,0 +1,281 @@
+/**
+ * ParallelConverter.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the bulk conversions in {@link Convert} across a {@link ForkJoinPool}. Work is split
+ * into fixed size chunks so each task touches a cache friendly block of memory. Ranges smaller
+ * than the threshold are converted on the calling thread.
+ */
+public class ParallelConverter {
+	/**
+	 * The default number of values below which conversions are not split.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1 << 16;
+	/**
+	 * The default number of values in each chunk, 128KB of doubles.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 14;
+
+	private final ForkJoinPool pool;
+	private final int threshold;
+	private final int chunkSize;
+
+	/**
+	 * Convert using the common pool and the default threshold and chunk size.
+	 */
+	public ParallelConverter() {
+		this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Convert using a specific pool and the default threshold and chunk size.
+	 */
+	public ParallelConverter(ForkJoinPool pool) {
+		this(pool, DEFAULT_THRESHOLD, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param pool the pool to run conversions in
+	 * @param threshold the number of values below which conversions will run on the calling thread
+	 * @param chunkSize the maximum number of values converted by a single task
+	 */
+	public ParallelConverter(ForkJoinPool pool, int threshold, int chunkSize) {
+		if (pool == null)
+			throw new IllegalArgumentException("pool");
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("chunkSize");
+		this.pool = pool;
+		this.threshold = threshold;
+		this.chunkSize = chunkSize;
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Convert a range of values from one array into another.
+	 *
+	 * @see Convert#convertUnit(double[], int, double[], int, int, long, long)
+	 * @return how the work was split
+	 */
+	public Partition convertUnit(final double[] src, final int srcOff, final double[] dst, final int dstOff, int len, long to_format, long from_format) {
+		ConversionPlan.checkRange(src.length, srcOff, len);
+		ConversionPlan.checkRange(dst.length, dstOff, len);
+		final ConversionPlan plan = Convert.plan(to_format, from_format);
+		return run(len, (start, end) -> plan.apply(src, srcOff + start, dst, dstOff + start, end - start));
+	}
+
+	/**
+	 * Convert every value in an array in place.
+	 *
+	 * @return how the work was split
+	 */
+	public Partition convertUnit(double[] values, long to_format, long from_format) {
+		return convertUnit(values, 0, values, 0, values.length, to_format, from_format);
+	}
+
+	/**
+	 * Convert a range of single precision values from one array into another.
+	 *
+	 * @see Convert#convertUnit(float[], int, float[], int, int, long, long)
+	 * @return how the work was split
+	 */
+	public Partition convertUnit(final float[] src, final int srcOff, final float[] dst, final int dstOff, int len, long to_format, long from_format) {
+		ConversionPlan.checkRange(src.length, srcOff, len);
+		ConversionPlan.checkRange(dst.length, dstOff, len);
+		final ConversionPlan plan = Convert.plan(to_format, from_format);
+		return run(len, (start, end) -> plan.apply(src, srcOff + start, dst, dstOff + start, end - start));
+	}
+
+	/**
+	 * Convert every value in a single precision array in place.
+	 *
+	 * @return how the work was split
+	 */
+	public Partition convertUnit(float[] values, long to_format, long from_format) {
+		return convertUnit(values, 0, values, 0, values.length, to_format, from_format);
+	}
+
+	/**
+	 * Convert a range of values from one buffer into another using absolute indices.
+	 *
+	 * @see ConversionPlan#apply(DoubleBuffer, int, DoubleBuffer, int, int)
+	 * @return how the work was split
+	 */
+	public Partition convertUnit(final DoubleBuffer src, final int srcIndex, final DoubleBuffer dst, final int dstIndex, int len, long to_format, long from_format) {
+		ConversionPlan.checkRange(src.limit(), srcIndex, len);
+		ConversionPlan.checkRange(dst.limit(), dstIndex, len);
+		final ConversionPlan plan = Convert.plan(to_format, from_format);
+		return run(len, (start, end) -> plan.apply(src, srcIndex + start, dst, dstIndex + start, end - start));
+	}
+
+	/**
+	 * Convert the values between the buffer's position and limit in place.
+	 *
+	 * @return how the work was split
+	 */
+	public Partition convertUnit(DoubleBuffer buffer, long to_format, long from_format) {
+		return convertUnit(buffer, buffer.position(), buffer, buffer.position(), buffer.remaining(), to_format, from_format);
+	}
+
+	/**
+	 * Convert a range of values from one buffer into another using absolute indices.
+	 *
+	 * @see ConversionPlan#apply(FloatBuffer, int, FloatBuffer, int, int)
+	 * @return how the work was split
+	 */
+	public Partition convertUnit(final FloatBuffer src, final int srcIndex, final FloatBuffer dst, final int dstIndex, int len, long to_format, long from_format) {
+		ConversionPlan.checkRange(src.limit(), srcIndex, len);
+		ConversionPlan.checkRange(dst.limit(), dstIndex, len);
+		final ConversionPlan plan = Convert.plan(to_format, from_format);
+		return run(len, (start, end) -> plan.apply(src, srcIndex + start, dst, dstIndex + start, end - start));
+	}
+
+	/**
+	 * Convert the values between the buffer's position and limit in place.
+	 *
+	 * @return how the work was split
+	 */
+	public Partition convertUnit(FloatBuffer buffer, long to_format, long from_format) {
+		return convertUnit(buffer, buffer.position(), buffer, buffer.position(), buffer.remaining(), to_format, from_format);
+	}
+
+	/**
+	 * Run an operation over the indices <code>[0, len)</code>, split into chunks.
+	 *
+	 * @param len the number of indices
+	 * @param op the operation to run on each chunk
+	 * @return how the work was split
+	 */
+	public Partition run(int len, RangeOperation op) {
+		if (len < threshold || len <= chunkSize) {
+			if (len > 0)
+				op.apply(0, len);
+			return new Partition(len, len > 0 ? 1 : 0, len, false);
+		}
+		pool.invoke(new RangeTask(op, 0, len, chunkSize));
+		return new Partition(len, (int)(((long)len + chunkSize - 1) / chunkSize), chunkSize, true);
+	}
+
+	/**
+	 * An operation that processes a contiguous range of indices.
+	 */
+	@FunctionalInterface
+	public interface RangeOperation {
+		/**
+		 * @param start the first index to process
+		 * @param end one past the last index to process
+		 */
+		void apply(int start, int end);
+	}
+
+	/**
+	 * Describes how a parallel operation was split.
+	 */
+	public static class Partition {
+		private final int length;
+		private final int chunks;
+		private final int chunkSize;
+		private final boolean parallel;
+
+		Partition(int length, int chunks, int chunkSize, boolean parallel) {
+			this.length = length;
+			this.chunks = chunks;
+			this.chunkSize = chunkSize;
+			this.parallel = parallel;
+		}
+
+		/**
+		 * The total number of values processed.
+		 */
+		public int getLength() {
+			return length;
+		}
+
+		/**
+		 * The number of chunks the values were split into.
+		 */
+		public int getChunks() {
+			return chunks;
+		}
+
+		/**
+		 * The largest number of values in a chunk. The final chunk may be smaller.
+		 */
+		public int getChunkSize() {
+			return chunkSize;
+		}
+
+		/**
+		 * Were the chunks submitted to the pool or run on the calling thread.
+		 */
+		public boolean isParallel() {
+			return parallel;
+		}
+
+		@Override
+		public String toString() {
+			return length + " values in " + chunks + " chunk(s) of " + chunkSize + (parallel ? " (parallel)" : " (sequential)");
+		}
+	}
+
+	private static class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final RangeOperation op;
+		private final int start;
+		private final int end;
+		private final int chunkSize;
+
+		RangeTask(RangeOperation op, int start, int end, int chunkSize) {
+			this.op = op;
+			this.start = start;
+			this.end = end;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected void compute() {
+			int len = end - start;
+			if (len <= chunkSize) {
+				op.apply(start, end);
+				return;
+			}
+			//split on a chunk boundary so every chunk but the last is full
+			int chunks = (int)(((long)len + chunkSize - 1) / chunkSize);
+			int mid = start + (chunks / 2) * chunkSize;
+			invokeAll(new RangeTask(op, start, mid, chunkSize), new RangeTask(op, mid, end, chunkSize));
+		}
+	}
+}
@@ -0,0 +1,241 @@
+/**
+ * QuantityColumn.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * A column of values stored in a primitive <code>double[]</code> or <code>float[]</code>
+ * together with the {@link Convert.STORAGE_FORMAT} they are stored in.
+ *
+ * A column can be re-interpreted in another format with {@link #as(long)}. That returns a
+ * view that shares the backing array and converts values as they are read, so switching the
+ * display {@link Convert.UnitSystem} doesn't copy the data. Use {@link #materialize()} to
+ * convert a view into a new array once if it is going to be read many times.
+ *
+ * Columns are not synchronized. Views see changes made to the backing array.
+ */
+public final class QuantityColumn {
+	private final double[] doubles;
+	private final float[] floats;
+	private final long storageFormat;
+	private final long format;
+	private final ConversionPlan plan;
+
+	private QuantityColumn(double[] doubles, float[] floats, long storageFormat, long format) {
+		this.doubles = doubles;
+		this.floats = floats;
+		this.storageFormat = storageFormat;
+		this.format = format;
+		this.plan = Convert.plan(format, storageFormat);
+	}
+
+	/**
+	 * Wrap an array of values without copying it.
+	 *
+	 * @param values the values
+	 * @param format the format the values are stored in
+	 */
+	public static QuantityColumn of(double[] values, long format) {
+		return new QuantityColumn(values, null, format, format);
+	}
+
+	/**
+	 * Wrap an array of values without copying it.
+	 *
+	 * @param values the values
+	 * @param format the format the values are stored in
+	 */
+	public static QuantityColumn of(float[] values, long format) {
+		return new QuantityColumn(null, values, format, format);
+	}
+
+	/**
+	 * The format values are returned in.
+	 */
+	public long getFormat() {
+		return format;
+	}
+
+	/**
+	 * The format values are stored in by the backing array.
+	 */
+	public long getStorageFormat() {
+		return storageFormat;
+	}
+
+	/**
+	 * Is this a view that converts values as they are read.
+	 */
+	public boolean isView() {
+		return !plan.isIdentity();
+	}
+
+	/**
+	 * Is the backing array a <code>float[]</code>.
+	 */
+	public boolean isFloat() {
+		return floats != null;
+	}
+
+	public int size() {
+		return doubles != null ? doubles.length : floats.length;
+	}
+
+	/**
+	 * Get a column that returns the same values in a different format. No values are
+	 * copied or converted until they are read.
+	 *
+	 * @param format the format to return values in
+	 */
+	public QuantityColumn as(long format) {
+		if (format == this.format)
+			return this;
+		return new QuantityColumn(doubles, floats, storageFormat, format);
+	}
+
+	/**
+	 * Get a column that stores its values in the format this column returns them in. If
+	 * this column isn't a view it is returned as is, otherwise the values are converted into
+	 * a new array of the same primitive type.
+	 */
+	public QuantityColumn materialize() {
+		if (plan.isIdentity())
+			return this;
+		if (doubles != null) {
+			double[] values = new double[doubles.length];
+			plan.apply(doubles, 0, values, 0, doubles.length);
+			return new QuantityColumn(values, null, format, format);
+		}
+		float[] values = new float[floats.length];
+		plan.apply(floats, 0, values, 0, floats.length);
+		return new QuantityColumn(null, values, format, format);
+	}
+
+	/**
+	 * Convert the values to a different format once and store them in a new array.
+	 *
+	 * @param format the format to store the values in
+	 */
+	public QuantityColumn materialize(long format) {
+		return as(format).materialize();
+	}
+
+	/**
+	 * Get a single value in the format of this column.
+	 */
+	public double get(int index) {
+		if (doubles != null)
+			return plan.apply(doubles[index]);
+		return plan.apply(floats[index]);
+	}
+
+	/**
+	 * Set a single value. The value is converted to the storage format.
+	 *
+	 * @param index the index of the value to set
+	 * @param value the value, in the format of this column
+	 */
+	public void set(int index, double value) {
+		if (!plan.isIdentity())
+			value = Convert.plan(storageFormat, format).apply(value);
+		if (doubles != null)
+			doubles[index] = value;
+		else
+			floats[index] = (float)value;
+	}
+
+	/**
+	 * Read a range of values, in the format of this column, into an array.
+	 *
+	 * @param index the index of the first value to read
+	 * @param dst the array to store the values in
+	 * @param dstOff the index in <code>dst</code> to store the first value at
+	 * @param len the number of values to read
+	 */
+	public void get(int index, double[] dst, int dstOff, int len) {
+		if (doubles != null) {
+			plan.apply(doubles, index, dst, dstOff, len);
+			return;
+		}
+		ConversionPlan.checkRange(floats.length, index, len);
+		ConversionPlan.checkRange(dst.length, dstOff, len);
+		for (int i = 0; i < len; i++)
+			dst[dstOff + i] = plan.apply(floats[index + i]);
+	}
+
+	/**
+	 * Read a range of values, in the format of this column, into a single precision array.
+	 *
+	 * @param index the index of the first value to read
+	 * @param dst the array to store the values in
+	 * @param dstOff the index in <code>dst</code> to store the first value at
+	 * @param len the number of values to read
+	 */
+	public void get(int index, float[] dst, int dstOff, int len) {
+		if (floats != null) {
+			plan.apply(floats, index, dst, dstOff, len);
+			return;
+		}
+		ConversionPlan.checkRange(doubles.length, index, len);
+		ConversionPlan.checkRange(dst.length, dstOff, len);
+		for (int i = 0; i < len; i++)
+			dst[dstOff + i] = (float)plan.apply(doubles[index + i]);
+	}
+
+	/**
+	 * Copy all values, in the format of this column, into a new array.
+	 */
+	public double[] toArray() {
+		if (doubles != null && plan.isIdentity())
+			return Arrays.copyOf(doubles, doubles.length);
+		double[] retval = new double[size()];
+		get(0, retval, 0, retval.length);
+		return retval;
+	}
+
+	/**
+	 * Pass every value, in the format of this column, to a consumer.
+	 */
+	public void forEach(DoubleConsumer action) {
+		if (doubles != null) {
+			for (double value : doubles)
+				action.accept(plan.apply(value));
+		}
+		else {
+			for (float value : floats)
+				action.accept(plan.apply(value));
+		}
+	}
+
+	/**
+	 * Stream the values in the format of this column.
+	 */
+	public DoubleStream stream() {
+		if (doubles != null) {
+			if (plan.isIdentity())
+				return Arrays.stream(doubles);
+			return Arrays.stream(doubles).map(plan::apply);
+		}
+		return IntStream.range(0, floats.length).mapToDouble(i -> plan.apply(floats[i]));
+	}
+}
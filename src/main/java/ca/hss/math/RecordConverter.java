@@ -0,0 +1,375 @@
+/**
+ * RecordConverter.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ToDoubleFunction;
+
+import ca.hss.math.Convert.UnitSystem;
+
+/**
+ * Converts every unit-bearing field of a batch of records from one {@link UnitSystem} to
+ * another. Each field is described once by how to read and write it and its unit role, one
+ * of the {@link UnitSystem} helpers such as <code>UnitSystem::temperature</code>. The
+ * conversion for each field is resolved when the converter is built, fields whose unit
+ * doesn't change between the systems are dropped, and the remaining fields are converted
+ * in a single pass over the records.
+ *
+ * <pre>
+ * RecordConverter&lt;Weather&gt; converter = RecordConverter.builder(Weather.class)
+ *     .field(Weather::getTemp, Weather::setTemp, UnitSystem::temperature)
+ *     .property("windSpeed", UnitSystem::speed)
+ *     .column(Weather::getHourlyPrecip, UnitSystem::distanceSmall)
+ *     .build(UnitSystem.IMPERIAL, UnitSystem.METRIC);
+ * converter.convert(records);
+ * </pre>
+ *
+ * Converters are immutable and can be shared between threads as long as each thread works
+ * on different records.
+ *
+ * @param <T> the record type
+ */
+public final class RecordConverter<T> {
+	private final ToDoubleFunction<? super T>[] getters;
+	private final ObjDoubleConsumer<? super T>[] setters;
+	private final ConversionPlan[] fieldPlans;
+	private final Function<? super T, double[]>[] columns;
+	private final ConversionPlan[] columnPlans;
+	private final Function<? super T, float[]>[] floatColumns;
+	private final ConversionPlan[] floatColumnPlans;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private RecordConverter(List<Field<T>> fields, List<Column<T, double[]>> columns, List<Column<T, float[]>> floatColumns, int to_system, int from_system) {
+		List<Field<T>> activeFields = new ArrayList<>();
+		List<ConversionPlan> plans = new ArrayList<>();
+		for (Field<T> field : fields) {
+			ConversionPlan plan = plan(field.role, to_system, from_system);
+			if (plan != null) {
+				activeFields.add(field);
+				plans.add(plan);
+			}
+		}
+		this.getters = new ToDoubleFunction[activeFields.size()];
+		this.setters = new ObjDoubleConsumer[activeFields.size()];
+		for (int i = 0; i < activeFields.size(); i++) {
+			this.getters[i] = activeFields.get(i).getter;
+			this.setters[i] = activeFields.get(i).setter;
+		}
+		this.fieldPlans = plans.toArray(new ConversionPlan[0]);
+
+		List<Function<? super T, double[]>> activeColumns = new ArrayList<>();
+		plans.clear();
+		for (Column<T, double[]> column : columns) {
+			ConversionPlan plan = plan(column.role, to_system, from_system);
+			if (plan != null) {
+				activeColumns.add(column.getter);
+				plans.add(plan);
+			}
+		}
+		this.columns = activeColumns.toArray(new Function[0]);
+		this.columnPlans = plans.toArray(new ConversionPlan[0]);
+
+		List<Function<? super T, float[]>> activeFloatColumns = new ArrayList<>();
+		plans.clear();
+		for (Column<T, float[]> column : floatColumns) {
+			ConversionPlan plan = plan(column.role, to_system, from_system);
+			if (plan != null) {
+				activeFloatColumns.add(column.getter);
+				plans.add(plan);
+			}
+		}
+		this.floatColumns = activeFloatColumns.toArray(new Function[0]);
+		this.floatColumnPlans = plans.toArray(new ConversionPlan[0]);
+	}
+
+	/**
+	 * Start describing the fields of a record type.
+	 *
+	 * @param clazz the record type, used to look up properties by name
+	 */
+	public static <T> Builder<T> builder(Class<T> clazz) {
+		return new Builder<T>(clazz);
+	}
+
+	/**
+	 * The number of fields, including array columns, that this converter changes. Fields
+	 * whose unit is the same in both systems are not counted.
+	 */
+	public int getFieldCount() {
+		return fieldPlans.length + columnPlans.length + floatColumnPlans.length;
+	}
+
+	/**
+	 * Convert the fields of a single record.
+	 */
+	public void convert(T record) {
+		final ToDoubleFunction<? super T>[] getters = this.getters;
+		final ObjDoubleConsumer<? super T>[] setters = this.setters;
+		final ConversionPlan[] fieldPlans = this.fieldPlans;
+		for (int i = 0; i < fieldPlans.length; i++)
+			setters[i].accept(record, fieldPlans[i].apply(getters[i].applyAsDouble(record)));
+		for (int i = 0; i < columnPlans.length; i++) {
+			double[] values = columns[i].apply(record);
+			if (values != null)
+				columnPlans[i].apply(values, 0, values, 0, values.length);
+		}
+		for (int i = 0; i < floatColumnPlans.length; i++) {
+			float[] values = floatColumns[i].apply(record);
+			if (values != null)
+				floatColumnPlans[i].apply(values, 0, values, 0, values.length);
+		}
+	}
+
+	/**
+	 * Convert the fields of a range of records.
+	 *
+	 * @param records the records to convert
+	 * @param off the index of the first record to convert
+	 * @param len the number of records to convert
+	 */
+	public void convert(T[] records, int off, int len) {
+		ConversionPlan.checkRange(records.length, off, len);
+		for (int i = off; i < off + len; i++)
+			convert(records[i]);
+	}
+
+	/**
+	 * Convert the fields of every record in an array.
+	 */
+	public void convert(T[] records) {
+		for (T record : records)
+			convert(record);
+	}
+
+	/**
+	 * Convert the fields of every record in a collection.
+	 */
+	public void convert(Iterable<? extends T> records) {
+		for (T record : records)
+			convert(record);
+	}
+
+	private static ConversionPlan plan(IntToLongFunction role, int to_system, int from_system) {
+		ConversionPlan plan = Convert.plan(role.applyAsLong(to_system), role.applyAsLong(from_system));
+		if (plan.isIdentity())
+			return null;
+		return plan;
+	}
+
+	private static final class Field<T> {
+		final ToDoubleFunction<? super T> getter;
+		final ObjDoubleConsumer<? super T> setter;
+		final IntToLongFunction role;
+
+		Field(ToDoubleFunction<? super T> getter, ObjDoubleConsumer<? super T> setter, IntToLongFunction role) {
+			this.getter = getter;
+			this.setter = setter;
+			this.role = role;
+		}
+	}
+
+	private static final class Column<T, A> {
+		final Function<? super T, A> getter;
+		final IntToLongFunction role;
+
+		Column(Function<? super T, A> getter, IntToLongFunction role) {
+			this.getter = getter;
+			this.role = role;
+		}
+	}
+
+	/**
+	 * Describes the fields of a record type. A builder can create any number of converters.
+	 *
+	 * @param <T> the record type
+	 */
+	public static final class Builder<T> {
+		private final Class<T> clazz;
+		private final List<Field<T>> fields = new ArrayList<>();
+		private final List<Column<T, double[]>> columns = new ArrayList<>();
+		private final List<Column<T, float[]>> floatColumns = new ArrayList<>();
+
+		Builder(Class<T> clazz) {
+			if (clazz == null)
+				throw new IllegalArgumentException("clazz");
+			this.clazz = clazz;
+		}
+
+		/**
+		 * Add a field that is read and written through a getter and setter.
+		 *
+		 * @param getter reads the value from a record
+		 * @param setter writes the converted value back to a record
+		 * @param role the unit of the field in a given {@link UnitSystem}, ex. <code>UnitSystem::speed</code>
+		 */
+		public Builder<T> field(ToDoubleFunction<? super T> getter, ObjDoubleConsumer<? super T> setter, IntToLongFunction role) {
+			if (getter == null || setter == null || role == null)
+				throw new IllegalArgumentException();
+			fields.add(new Field<T>(getter, setter, role));
+			return this;
+		}
+
+		/**
+		 * Add a bean property by name. The record type must have public <code>getName</code>
+		 * (or <code>isName</code>) and <code>setName</code> methods of type <code>double</code>
+		 * or <code>float</code>. Accessors are bound once, here, so converting records doesn't
+		 * use reflection.
+		 *
+		 * @param name the name of the property, ex. <code>windSpeed</code> for <code>getWindSpeed</code>
+		 * @param role the unit of the property in a given {@link UnitSystem}
+		 * @throws IllegalArgumentException if the accessors can't be found
+		 */
+		public Builder<T> property(String name, IntToLongFunction role) {
+			if (name == null || name.length() == 0 || role == null)
+				throw new IllegalArgumentException();
+			String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			for (Class<?> type : new Class<?>[] { double.class, float.class }) {
+				MethodHandle getter = findGetter(lookup, suffix, type);
+				if (getter == null)
+					continue;
+				MethodHandle setter;
+				try {
+					setter = lookup.findVirtual(clazz, "set" + suffix, MethodType.methodType(void.class, type));
+				}
+				catch (NoSuchMethodException|IllegalAccessException e) {
+					throw new IllegalArgumentException("No public setter for " + name + " in " + clazz.getName(), e);
+				}
+				fields.add(new Field<T>(bindGetter(getter), bindSetter(setter, type), role));
+				return this;
+			}
+			throw new IllegalArgumentException("No public double or float getter for " + name + " in " + clazz.getName());
+		}
+
+		/**
+		 * Add a field that holds an array of values, ex. an hourly series. The array is
+		 * converted in place. Records that return <code>null</code> are skipped.
+		 *
+		 * @param getter returns the array from a record
+		 * @param role the unit of the values in a given {@link UnitSystem}
+		 */
+		public Builder<T> column(Function<? super T, double[]> getter, IntToLongFunction role) {
+			if (getter == null || role == null)
+				throw new IllegalArgumentException();
+			columns.add(new Column<T, double[]>(getter, role));
+			return this;
+		}
+
+		/**
+		 * Add a field that holds a single precision array of values. The array is converted
+		 * in place without widening to double. Records that return <code>null</code> are skipped.
+		 *
+		 * @param getter returns the array from a record
+		 * @param role the unit of the values in a given {@link UnitSystem}
+		 */
+		public Builder<T> floatColumn(Function<? super T, float[]> getter, IntToLongFunction role) {
+			if (getter == null || role == null)
+				throw new IllegalArgumentException();
+			floatColumns.add(new Column<T, float[]>(getter, role));
+			return this;
+		}
+
+		/**
+		 * Create a converter for the fields described so far.
+		 *
+		 * @param to_system the {@link UnitSystem} to convert records to
+		 * @param from_system the {@link UnitSystem} records are stored in
+		 */
+		public RecordConverter<T> build(int to_system, int from_system) {
+			return new RecordConverter<T>(fields, columns, floatColumns, to_system, from_system);
+		}
+
+		private MethodHandle findGetter(MethodHandles.Lookup lookup, String suffix, Class<?> type) {
+			for (String prefix : new String[] { "get", "is" }) {
+				try {
+					return lookup.findVirtual(clazz, prefix + suffix, MethodType.methodType(type));
+				}
+				catch (NoSuchMethodException|IllegalAccessException e) {
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Spin a lambda for the getter so the call can be inlined like a method reference.
+		 * Falls back to invoking the handle if the record class isn't visible to this class.
+		 */
+		@SuppressWarnings("unchecked")
+		private ToDoubleFunction<T> bindGetter(MethodHandle getter) {
+			try {
+				CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "applyAsDouble",
+						MethodType.methodType(ToDoubleFunction.class), MethodType.methodType(double.class, Object.class),
+						getter, MethodType.methodType(double.class, clazz));
+				return (ToDoubleFunction<T>)site.getTarget().invoke();
+			}
+			catch (Throwable e) {
+				final MethodHandle handle = getter.asType(MethodType.methodType(double.class, Object.class));
+				return record -> {
+					try {
+						return (double)handle.invokeExact(record);
+					}
+					catch (Throwable t) {
+						throw rethrow(t);
+					}
+				};
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private ObjDoubleConsumer<T> bindSetter(MethodHandle setter, Class<?> type) {
+			if (type == double.class) {
+				try {
+					CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "accept",
+							MethodType.methodType(ObjDoubleConsumer.class), MethodType.methodType(void.class, Object.class, double.class),
+							setter, MethodType.methodType(void.class, clazz, double.class));
+					return (ObjDoubleConsumer<T>)site.getTarget().invoke();
+				}
+				catch (Throwable e) {
+				}
+			}
+			//float setters need a narrowing cast that the metafactory won't insert
+			final MethodHandle handle = MethodHandles.explicitCastArguments(setter, MethodType.methodType(void.class, Object.class, double.class));
+			return (record, value) -> {
+				try {
+					handle.invokeExact(record, value);
+				}
+				catch (Throwable t) {
+					throw rethrow(t);
+				}
+			};
+		}
+
+		private static RuntimeException rethrow(Throwable t) {
+			if (t instanceof RuntimeException)
+				return (RuntimeException)t;
+			if (t instanceof Error)
+				throw (Error)t;
+			return new IllegalStateException(t);
+		}
+	}
+}
@@ -0,0 +1,359 @@
+/**
+ * UnitParser.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * Turns unit labels, like those found in the headers of weather files ("km/h", "&deg;F",
+ * "mm", "kPa", "ch/h"), into the {@link STORAGE_FORMAT} codes used by {@link Convert}.
+ *
+ * Labels are looked up in an open addressing hash table that is kept at most half full, so a
+ * lookup is a single hash of the label and usually one comparison. Labels of the form "a/b" that aren't in the table are
+ * split and each half looked up. If the denominator is a time unit the result is a simple
+ * format with the time bits set (ie. "m/min"), otherwise it is a {@link Convert#compound(long, long)}
+ * format. The result of parsing compound labels is kept in a small bounded cache that is
+ * cleared whenever labels are registered.
+ *
+ * Lookups are case sensitive since some units only differ by case (ie. "K" and "k").
+ * Whitespace around the label is ignored.
+ */
+public final class UnitParser {
+	/**
+	 * Returned when a label can't be parsed.
+	 */
+	public static final long UNKNOWN = -1L;
+
+	private static final int CACHE_SIZE = 256;
+
+	private static final Map<String, Long> labels = new LinkedHashMap<>();
+	private static volatile Table table;
+	private static final CacheEntry cache[] = new CacheEntry[CACHE_SIZE];
+
+	static {
+		long S = STORAGE_FORMAT.SECOND, MIN = STORAGE_FORMAT.MINUTE, H = STORAGE_FORMAT.HOUR;
+		add(STORAGE_FORMAT.MICROSECOND, "us", "\u00b5s", "microsecond", "microseconds");
+		add(STORAGE_FORMAT.MILLISECOND, "ms", "millisecond", "milliseconds");
+		add(S, "s", "sec", "second", "seconds");
+		add(MIN, "min", "minute", "minutes");
+		add(H, "h", "hr", "hour", "hours");
+		add(STORAGE_FORMAT.DAY, "d", "day", "days");
+		add(STORAGE_FORMAT.WEEK, "wk", "week", "weeks");
+		add(STORAGE_FORMAT.MONTH, "mo", "month", "months");
+		add(STORAGE_FORMAT.YEAR, "yr", "year", "years");
+		add(STORAGE_FORMAT.DECADE, "decade", "decades");
+		add(STORAGE_FORMAT.CENTURY, "century", "centuries");
+
+		add(STORAGE_FORMAT.MM, "mm", "millimetre", "millimetres", "millimeter", "millimeters");
+		add(STORAGE_FORMAT.CM, "cm", "centimetre", "centimetres", "centimeter", "centimeters");
+		add(STORAGE_FORMAT.M, "m", "metre", "metres", "meter", "meters");
+		add(STORAGE_FORMAT.KM, "km", "kilometre", "kilometres", "kilometer", "kilometers");
+		add(STORAGE_FORMAT.INCH, "in", "inch", "inches", "\"");
+		add(STORAGE_FORMAT.FOOT, "ft", "foot", "feet", "'");
+		add(STORAGE_FORMAT.YARD, "yd", "yard", "yards");
+		add(STORAGE_FORMAT.CHAIN, "ch", "chain", "chains");
+		add(STORAGE_FORMAT.MILE, "mi", "mile", "miles");
+		add(STORAGE_FORMAT.NAUTICAL_MILE, "nmi", "NM", "nautical mile", "nautical miles");
+		add(STORAGE_FORMAT.NAUTICAL_MILE_UK, "UK nmi", "UK nautical mile");
+
+		addPowers(STORAGE_FORMAT.MM2, "2", "mm");
+		addPowers(STORAGE_FORMAT.CM2, "2", "cm");
+		addPowers(STORAGE_FORMAT.M2, "2", "m");
+		add(STORAGE_FORMAT.HECTARE, "ha", "hectare", "hectares");
+		addPowers(STORAGE_FORMAT.KM2, "2", "km");
+		addPowers(STORAGE_FORMAT.IN2, "2", "in");
+		addPowers(STORAGE_FORMAT.FT2, "2", "ft");
+		addPowers(STORAGE_FORMAT.YD2, "2", "yd");
+		add(STORAGE_FORMAT.ACRE, "ac", "acre", "acres");
+		addPowers(STORAGE_FORMAT.MILE2, "2", "mi");
+
+		addPowers(STORAGE_FORMAT.MM3, "3", "mm");
+		addPowers(STORAGE_FORMAT.CM3, "3", "cm");
+		add(STORAGE_FORMAT.CM3, "cc", "mL", "ml");
+		add(STORAGE_FORMAT.LITRE, "L", "l", "litre", "litres", "liter", "liters");
+		addPowers(STORAGE_FORMAT.M3, "3", "m");
+		addPowers(STORAGE_FORMAT.KM3, "3", "km");
+		addPowers(STORAGE_FORMAT.IN3, "3", "in");
+		addPowers(STORAGE_FORMAT.FT3, "3", "ft");
+		addPowers(STORAGE_FORMAT.YD3, "3", "yd");
+		addPowers(STORAGE_FORMAT.MILE3, "3", "mi");
+		add(STORAGE_FORMAT.UK_FL_OZ, "UK fl oz");
+		add(STORAGE_FORMAT.UK_PINT, "UK pt", "UK pint");
+		add(STORAGE_FORMAT.UK_QUART, "UK qt", "UK quart");
+		add(STORAGE_FORMAT.UK_GALLON, "UK gal", "UK gallon", "imp gal");
+		add(STORAGE_FORMAT.BUSHEL, "bu", "bushel", "bushels");
+		add(STORAGE_FORMAT.US_DRAM, "dr", "dram");
+		add(STORAGE_FORMAT.US_FL_OZ, "fl oz", "US fl oz");
+		add(STORAGE_FORMAT.US_FL_PINT, "pt", "US pt", "pint");
+		add(STORAGE_FORMAT.US_FL_QUART, "qt", "US qt", "quart");
+		add(STORAGE_FORMAT.US_GALLON, "gal", "US gal", "gallon", "gallons");
+		add(STORAGE_FORMAT.US_FL_BARREL, "bbl", "barrel");
+		add(STORAGE_FORMAT.US_DRY_PINT, "US dry pt");
+		add(STORAGE_FORMAT.US_DRY_QUART, "US dry qt");
+		add(STORAGE_FORMAT.US_DRY_BARREL, "US dry bbl");
+
+		add(STORAGE_FORMAT.KELVIN, "K", "kelvin");
+		add(STORAGE_FORMAT.CELSIUS, "C", "\u00b0C", "\u2103", "degC", "deg C", "celsius", "Celsius");
+		add(STORAGE_FORMAT.FAHRENHEIT, "F", "\u00b0F", "\u2109", "degF", "deg F", "fahrenheit", "Fahrenheit");
+		add(STORAGE_FORMAT.RANKINE, "R", "\u00b0R", "degR", "rankine", "Rankine");
+
+		add(STORAGE_FORMAT.KPA, "kPa", "kpa");
+		add(STORAGE_FORMAT.PSI, "psi");
+		add(STORAGE_FORMAT.BAR, "bar");
+		add(STORAGE_FORMAT.ATM, "atm");
+		add(STORAGE_FORMAT.TORR, "torr", "Torr", "mmHg");
+
+		add(STORAGE_FORMAT.MILLIGRAM, "mg", "milligram", "milligrams");
+		add(STORAGE_FORMAT.GRAM, "g", "gram", "grams");
+		add(STORAGE_FORMAT.KG, "kg", "kilogram", "kilograms");
+		add(STORAGE_FORMAT.TONNE, "t", "tonne", "tonnes");
+		add(STORAGE_FORMAT.OUNCE, "oz", "ounce", "ounces");
+		add(STORAGE_FORMAT.LB, "lb", "lbs", "pound", "pounds");
+		add(STORAGE_FORMAT.SHORT_TON, "ton", "tons", "short ton", "short tons");
+		add(STORAGE_FORMAT.TON, "long ton", "long tons");
+
+		add(STORAGE_FORMAT.JOULE, "J", "joule", "joules");
+		add(STORAGE_FORMAT.KILOJOULE, "kJ", "kilojoule", "kilojoules");
+		add(STORAGE_FORMAT.ELECTRONVOLT, "eV");
+		add(STORAGE_FORMAT.ERG, "erg");
+		add(STORAGE_FORMAT.FT_LB, "ft-lb", "ft lb", "ft\u00b7lb");
+		add(STORAGE_FORMAT.CALORIE, "cal", "calorie", "calories");
+		add(STORAGE_FORMAT.KG_METRE, "kgm", "kg-m", "kg m");
+		add(STORAGE_FORMAT.BTU, "BTU", "Btu", "btu");
+		add(STORAGE_FORMAT.WATT, "W", "watt", "watts");
+		add(STORAGE_FORMAT.WATT_SECOND, "Ws", "W-s", "W s", "W\u00b7s");
+		add(STORAGE_FORMAT.WATT_HOUR, "Wh", "W-h", "W h", "W\u00b7h");
+		add(STORAGE_FORMAT.KILOWATT, "kW", "kilowatt", "kilowatts");
+		add(STORAGE_FORMAT.KILOWATT_SECOND, "kWs", "kW-s", "kW s", "kW\u00b7s");
+		add(STORAGE_FORMAT.KILOWATT_HOUR, "kWh", "kW-h", "kW h", "kW\u00b7h");
+		add(STORAGE_FORMAT.THERM, "thm", "therm", "therms");
+
+		add(STORAGE_FORMAT.DECIMAL, "decimal", "fraction");
+		add(STORAGE_FORMAT.PERCENT, "%", "percent", "pct");
+
+		add(STORAGE_FORMAT.ANGLE, "rad", "radian", "radians");
+		add(STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.DEGREE, "\u00b0", "deg", "degree", "degrees");
+		add(STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.ARCSECOND, "arcsec", "\u2033");
+
+		add(STORAGE_FORMAT.KG_PER_M2, "kg/m2", "kg/m\u00b2", "kg/m^2", "kg m-2");
+		add(STORAGE_FORMAT.TONS_PER_ACRE, "tons/acre", "tons/ac", "ton/ac", "t/ac");
+		add(STORAGE_FORMAT.KILOWATT_PER_M, "kW/m", "kW m-1");
+		add(STORAGE_FORMAT.BTU_FT_S, "BTU/ft/s", "Btu/ft/s", "BTU/ft s", "BTU/ft\u00b7s");
+
+		add(STORAGE_FORMAT.KM | H, "kph", "kmh", "kmph");
+		add(STORAGE_FORMAT.MILE | H, "mph");
+		add(STORAGE_FORMAT.NAUTICAL_MILE | H, "kn", "kt", "knot", "knots");
+		add(STORAGE_FORMAT.M | S, "mps");
+		add(STORAGE_FORMAT.M | MIN, "mpm");
+		add(STORAGE_FORMAT.FOOT | MIN, "fpm");
+
+		rebuild();
+	}
+
+	private UnitParser() { }
+
+	private static void add(long code, String... names) {
+		for (String name : names)
+			labels.putIfAbsent(name, code);
+	}
+
+	private static void addPowers(long code, String power, String base) {
+		add(code, base + power, base + "^" + power, base + (power.equals("2") ? "\u00b2" : "\u00b3"),
+				(power.equals("2") ? "sq " : "cu ") + base);
+	}
+
+	/**
+	 * Add a label to the lookup table, replacing the format of the label if it already
+	 * exists. The table is rebuilt each time, use {@link #register(Map)} to add many labels.
+	 *
+	 * @param label the label
+	 * @param code the format the label represents
+	 */
+	public static synchronized void register(String label, long code) {
+		labels.put(label.trim(), code);
+		rebuild();
+	}
+
+	/**
+	 * Add many labels to the lookup table, rebuilding it once.
+	 *
+	 * @param entries the labels and the formats they represent
+	 */
+	public static synchronized void register(Map<String, Long> entries) {
+		for (Map.Entry<String, Long> e : entries.entrySet())
+			labels.put(e.getKey().trim(), e.getValue());
+		rebuild();
+	}
+
+	/**
+	 * Parse a unit label.
+	 *
+	 * @param label the label to parse
+	 * @return the format code or {@link #UNKNOWN} if the label isn't recognized
+	 */
+	public static long parse(CharSequence label) {
+		return parse(label, 0, label.length());
+	}
+
+	/**
+	 * Parse a unit label from part of a character sequence.
+	 *
+	 * @param label the sequence containing the label
+	 * @param start the index of the first character of the label
+	 * @param end one past the index of the last character of the label
+	 * @return the format code or {@link #UNKNOWN} if the label isn't recognized
+	 */
+	public static long parse(CharSequence label, int start, int end) {
+		while (start < end && Character.isWhitespace(label.charAt(start)))
+			start++;
+		while (end > start && Character.isWhitespace(label.charAt(end - 1)))
+			end--;
+		if (start == end)
+			return UNKNOWN;
+		Table t = table;
+		long code = t.get(label, start, end);
+		if (code != UNKNOWN)
+			return code;
+
+		int slash = -1;
+		for (int i = start; i < end; i++) {
+			if (label.charAt(i) == '/') {
+				slash = i;
+				break;
+			}
+		}
+		if (slash < 0)
+			return UNKNOWN;
+
+		//compound labels are cached so repeated headers only need to be split once
+		int index = 0;
+		if (label instanceof String) {
+			index = (label.hashCode() ^ (start * 31 + end)) & (CACHE_SIZE - 1);
+			CacheEntry entry = cache[index];
+			if (entry != null && entry.table == t && entry.start == start && entry.end == end && entry.label.equals(label))
+				return entry.code;
+		}
+		code = compound(t, label, start, slash, end);
+		if (label instanceof String)
+			cache[index] = new CacheEntry(t, (String)label, start, end, code);
+		return code;
+	}
+
+	private static long compound(Table t, CharSequence label, int start, int slash, int end) {
+		int numEnd = slash, denStart = slash + 1;
+		while (numEnd > start && Character.isWhitespace(label.charAt(numEnd - 1)))
+			numEnd--;
+		while (denStart < end && Character.isWhitespace(label.charAt(denStart)))
+			denStart++;
+		if (numEnd == start || denStart == end)
+			return UNKNOWN;
+		long numerator = t.get(label, start, numEnd);
+		long denominator = t.get(label, denStart, end);
+		if (numerator == UNKNOWN || denominator == UNKNOWN)
+			return UNKNOWN;
+		if ((denominator & ~STORAGE_FORMAT.TIME_UNIT_MASK) == 0 && (numerator & STORAGE_FORMAT.TIME_MASK) == 0)
+			return numerator | denominator | STORAGE_FORMAT.TIME_DIV;
+		return Convert.compound(numerator, denominator);
+	}
+
+	private static void rebuild() {
+		table = new Table(labels);
+		Arrays.fill(cache, null);
+	}
+
+	/**
+	 * A parsed compound label. Entries remember the table they were parsed with so a
+	 * result computed while labels were being registered is never reused.
+	 */
+	private static final class CacheEntry {
+		final Table table;
+		final String label;
+		final int start;
+		final int end;
+		final long code;
+
+		CacheEntry(Table table, String label, int start, int end, long code) {
+			this.table = table;
+			this.label = label;
+			this.start = start;
+			this.end = end;
+			this.code = code;
+		}
+	}
+
+	/**
+	 * An immutable open addressing hash table with linear probing. The table has at least
+	 * twice as many slots as labels so probe sequences stay short and building it is linear
+	 * in the number of labels.
+	 */
+	private static final class Table {
+		private static final int SEED = 0x811c9dc5;
+
+		final char[][] keys;
+		final long[] values;
+		final int mask;
+
+		Table(Map<String, Long> labels) {
+			int size = Integer.highestOneBit(java.lang.Math.max(labels.size(), 1) * 2 - 1) << 1;
+			keys = new char[size][];
+			values = new long[size];
+			mask = size - 1;
+			for (Map.Entry<String, Long> e : labels.entrySet()) {
+				String label = e.getKey();
+				int slot = hash(label, 0, label.length()) & mask;
+				while (keys[slot] != null)
+					slot = (slot + 1) & mask;
+				keys[slot] = label.toCharArray();
+				values[slot] = e.getValue();
+			}
+		}
+
+		long get(CharSequence label, int start, int end) {
+			int slot = hash(label, start, end) & mask;
+			char[] key;
+			while ((key = keys[slot]) != null) {
+				if (matches(key, label, start, end))
+					return values[slot];
+				slot = (slot + 1) & mask;
+			}
+			return UNKNOWN;
+		}
+
+		private static boolean matches(char[] key, CharSequence label, int start, int end) {
+			if (key.length != end - start)
+				return false;
+			for (int i = 0; i < key.length; i++) {
+				if (key[i] != label.charAt(start + i))
+					return false;
+			}
+			return true;
+		}
+
+		static int hash(CharSequence label, int start, int end) {
+			int h = SEED;
+			for (int i = start; i < end; i++)
+				h = (h ^ label.charAt(i)) * 0x01000193;
+			return h ^ (h >>> 15);
+		}
+	}
+}
@@ -0,0 +1,221 @@
+/**
+ * UnitRegistry.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Application defined units. Units are registered in categories at startup, each unit
+ * being a multiple (and optionally an offset) of the first unit registered in its
+ * category. Once every unit has been registered call {@link #freeze()}, which copies the
+ * units into dense translation tables like the ones {@link Convert} uses for its built-in
+ * categories. After that the registered formats can be used anywhere a
+ * {@link Convert.STORAGE_FORMAT} can, including with the time modifiers, in compound
+ * formats, and by label through {@link UnitParser}.
+ *
+ * <pre>
+ * UnitRegistry.Category load = UnitRegistry.category("fuel load class");
+ * long CLASS_1 = load.unit(1.0, "class 1");
+ * long CLASS_2 = load.unit(2.5, "class 2");
+ * UnitRegistry.freeze();
+ * </pre>
+ *
+ * Formats are allocated from <code>0x00001000</code> to <code>0x0000ffff</code>, a range
+ * not used by the built-in formats, in blocks of 256 per category.
+ */
+public final class UnitRegistry {
+	static final long START = 0x00001000;
+	static final long END = 0x0000ffff;
+	private static final int CATEGORY_SIZE = 0x100;
+	private static final int MAX_CATEGORIES = (int)((END + 1 - START) / CATEGORY_SIZE);
+
+	private static final List<Category> categories = new ArrayList<>();
+	private static final Map<String, Long> labels = new LinkedHashMap<>();
+	private static volatile Tables tables;
+
+	private UnitRegistry() { }
+
+	/**
+	 * Get a category by name, creating it if it doesn't exist.
+	 *
+	 * @param name the name of the category
+	 * @throws IllegalStateException if the registry has been frozen, or all categories are in use
+	 */
+	public static synchronized Category category(String name) {
+		for (Category c : categories) {
+			if (c.name.equals(name))
+				return c;
+		}
+		checkOpen();
+		if (categories.size() >= MAX_CATEGORIES)
+			throw new IllegalStateException("No more unit categories are available.");
+		Category c = new Category(name, categories.size());
+		categories.add(c);
+		return c;
+	}
+
+	/**
+	 * Build the translation tables from the registered units and add their labels to
+	 * {@link UnitParser}. Units can't be registered after the registry is frozen, freezing
+	 * it again has no effect.
+	 */
+	public static synchronized void freeze() {
+		if (tables != null)
+			return;
+		int size = categories.size() * CATEGORY_SIZE;
+		double[] scale = new double[size];
+		double[] offset = new double[size];
+		Arrays.fill(scale, Double.NaN);
+		for (Category c : categories) {
+			int base = c.index * CATEGORY_SIZE;
+			for (int i = 0; i < c.scale.size(); i++) {
+				scale[base + i] = c.scale.get(i);
+				offset[base + i] = c.offset.get(i);
+			}
+		}
+		tables = new Tables(scale, offset);
+		UnitParser.register(labels);
+		//conversions of these formats may have been cached as unknown
+		Convert.clearPlans();
+	}
+
+	public static boolean isFrozen() {
+		return tables != null;
+	}
+
+	/**
+	 * Get the conversion between two registered units, or <code>null</code> if either isn't
+	 * a registered unit, the units are in different categories, or the registry hasn't been
+	 * frozen.
+	 *
+	 * @param scale the scale from converting the time modifier
+	 */
+	static ConversionPlan plan(long to, long from, double scale, long to_format, long from_format) {
+		Tables t = tables;
+		if (t == null)
+			return null;
+		int f = (int)(from_format - START);
+		int o = (int)(to_format - START);
+		if (f >= t.scale.length || o >= t.scale.length || (f / CATEGORY_SIZE) != (o / CATEGORY_SIZE))
+			return null;
+		double fromScale = t.scale[f];
+		double toScale = t.scale[o];
+		if (Double.isNaN(fromScale) || Double.isNaN(toScale))
+			return null;
+		return ConversionPlan.affine(to, from, scale * (fromScale / toScale), (t.offset[f] - t.offset[o]) / toScale);
+	}
+
+	private static void checkOpen() {
+		if (tables != null)
+			throw new IllegalStateException("The unit registry has been frozen.");
+	}
+
+	private static final class Tables {
+		final double[] scale;
+		final double[] offset;
+
+		Tables(double[] scale, double[] offset) {
+			this.scale = scale;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * A group of units that can be converted between each other.
+	 */
+	public static final class Category {
+		private final String name;
+		private final int index;
+		private final List<Double> scale = new ArrayList<>();
+		private final List<Double> offset = new ArrayList<>();
+
+		Category(String name, int index) {
+			this.name = name;
+			this.index = index;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * The number of units registered in this category.
+		 */
+		public int getUnitCount() {
+			synchronized (UnitRegistry.class) {
+				return scale.size();
+			}
+		}
+
+		/**
+		 * Does a format belong to this category.
+		 */
+		public boolean contains(long format) {
+			long first = START + (long)index * CATEGORY_SIZE;
+			return format >= first && format < first + getUnitCount();
+		}
+
+		/**
+		 * Register a unit that is a multiple of the first unit in this category.
+		 *
+		 * @param factor the number of the category's first unit in one of this unit, use 1 for the first unit
+		 * @param labels labels that {@link UnitParser} will recognize for the unit once the registry is frozen
+		 * @return the format of the new unit
+		 */
+		public long unit(double factor, String... labels) {
+			return unit(factor, 0.0, labels);
+		}
+
+		/**
+		 * Register a unit that is an affine transform of the first unit in this category,
+		 * <code>first = value * factor + offset</code>, like temperature scales.
+		 *
+		 * @param factor the scale from this unit to the category's first unit
+		 * @param offset the offset from this unit to the category's first unit
+		 * @param labels labels that {@link UnitParser} will recognize for the unit once the registry is frozen
+		 * @return the format of the new unit
+		 * @throws IllegalStateException if the registry has been frozen or the category is full
+		 */
+		public long unit(double factor, double offset, String... labels) {
+			if (factor == 0.0 || Double.isNaN(factor) || Double.isInfinite(factor) || Double.isNaN(offset) || Double.isInfinite(offset))
+				throw new IllegalArgumentException("factor");
+			long format;
+			synchronized (UnitRegistry.class) {
+				checkOpen();
+				if (scale.size() >= CATEGORY_SIZE)
+					throw new IllegalStateException("The " + name + " category is full.");
+				format = START + (long)index * CATEGORY_SIZE + scale.size();
+				this.scale.add(factor);
+				this.offset.add(offset);
+				for (String label : labels)
+					UnitRegistry.labels.put(label, format);
+			}
+			return format;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,277 @@
+/**
+ * UnitStatistics.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Count, sum, minimum and maximum of values that share a {@link Convert.STORAGE_FORMAT}.
+ * Values are aggregated in the format they are stored in and the results are converted
+ * once when they are read, so a series doesn't have to be converted element by element
+ * to be reported in another unit.
+ *
+ * Every linear and affine conversion is supported. The offset of affine conversions,
+ * like temperature, is applied to the sum once per value, and conversions with a negative
+ * scale, like the percent inversions, swap the minimum and maximum. Compass angles can't
+ * be aggregated linearly and are rejected.
+ *
+ * NaN values are counted and make the sum NaN, but they are ignored by the minimum and
+ * maximum however the values are added.
+ *
+ * Partial results from different threads can be merged with {@link #combine(UnitStatistics)}.
+ * Instances are not synchronized.
+ */
+public class UnitStatistics implements DoubleConsumer {
+	private final long format;
+	private long count;
+	private double sum;
+	private double compensation;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * @param format the format values will be stored in
+	 */
+	public UnitStatistics(long format) {
+		this.format = format;
+	}
+
+	/**
+	 * Aggregate a range of an array.
+	 *
+	 * @param values the values
+	 * @param off the index of the first value
+	 * @param len the number of values
+	 * @param format the format the values are stored in
+	 */
+	public static UnitStatistics of(double[] values, int off, int len, long format) {
+		UnitStatistics retval = new UnitStatistics(format);
+		retval.accept(values, off, len);
+		return retval;
+	}
+
+	/**
+	 * Aggregate every value in an array.
+	 *
+	 * @param values the values
+	 * @param format the format the values are stored in
+	 */
+	public static UnitStatistics of(double[] values, long format) {
+		return of(values, 0, values.length, format);
+	}
+
+	/**
+	 * Aggregate an array on multiple threads. Each chunk is aggregated separately and the
+	 * partial results are combined.
+	 *
+	 * @param values the values
+	 * @param format the format the values are stored in
+	 * @param converter decides how to split the array
+	 */
+	public static UnitStatistics of(final double[] values, long format, ParallelConverter converter) {
+		final UnitStatistics retval = new UnitStatistics(format);
+		converter.run(values.length, (start, end) -> {
+			UnitStatistics part = of(values, start, end - start, format);
+			synchronized (retval) {
+				retval.combine(part);
+			}
+		});
+		return retval;
+	}
+
+	/**
+	 * The format values are stored in.
+	 */
+	public long getFormat() {
+		return format;
+	}
+
+	@Override
+	public void accept(double value) {
+		count++;
+		add(value);
+		if (value < min)
+			min = value;
+		if (value > max)
+			max = value;
+	}
+
+	/**
+	 * Aggregate a range of an array.
+	 *
+	 * @param values the values, in the format of these statistics
+	 * @param off the index of the first value
+	 * @param len the number of values
+	 */
+	public void accept(double[] values, int off, int len) {
+		ConversionPlan.checkRange(values.length, off, len);
+		double lo = min, hi = max;
+		for (int i = off; i < off + len; i++) {
+			double value = values[i];
+			add(value);
+			if (value < lo)
+				lo = value;
+			if (value > hi)
+				hi = value;
+		}
+		count += len;
+		min = lo;
+		max = hi;
+	}
+
+	/**
+	 * Merge another set of statistics into this one. If the other statistics are stored in
+	 * a different format they are converted to this format first.
+	 *
+	 * @param other the statistics to merge
+	 * @return this
+	 */
+	public UnitStatistics combine(UnitStatistics other) {
+		if (other.count == 0)
+			return this;
+		if (other.format == format) {
+			count += other.count;
+			add(other.sum);
+			add(-other.compensation);
+			minMax(other.min, other.max);
+		}
+		else {
+			ConversionPlan plan = linearPlan(format, other.format);
+			count += other.count;
+			add(other.getSum() * plan.getScale() + other.count * plan.getOffset());
+			minMax(other.getMin(format), other.getMax(format));
+		}
+		return this;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * The sum of the values in the format they are stored in.
+	 */
+	public double getSum() {
+		double s = sum - compensation;
+		if (Double.isNaN(s) && Double.isInfinite(sum))
+			return sum;
+		return s;
+	}
+
+	/**
+	 * The sum of the values after converting each of them to another format. The sum is
+	 * converted once.
+	 *
+	 * @param to_format the format to report the sum in
+	 */
+	public double getSum(long to_format) {
+		ConversionPlan plan = linearPlan(to_format, format);
+		return getSum() * plan.getScale() + count * plan.getOffset();
+	}
+
+	/**
+	 * The mean of the values in the format they are stored in, or zero if there are none.
+	 */
+	public double getAverage() {
+		return count > 0 ? getSum() / count : 0.0;
+	}
+
+	/**
+	 * The mean of the values in another format, or zero if there are none.
+	 *
+	 * @param to_format the format to report the mean in
+	 */
+	public double getAverage(long to_format) {
+		if (count == 0)
+			return 0.0;
+		return linearPlan(to_format, format).apply(getAverage());
+	}
+
+	/**
+	 * The smallest value in the format it is stored in, or positive infinity if there are none.
+	 */
+	public double getMin() {
+		return min;
+	}
+
+	/**
+	 * The smallest value in another format, or positive infinity if there are none.
+	 *
+	 * @param to_format the format to report the minimum in
+	 */
+	public double getMin(long to_format) {
+		if (count == 0)
+			return Double.POSITIVE_INFINITY;
+		ConversionPlan plan = linearPlan(to_format, format);
+		return plan.apply(plan.getScale() < 0 ? max : min);
+	}
+
+	/**
+	 * The largest value in the format it is stored in, or negative infinity if there are none.
+	 */
+	public double getMax() {
+		return max;
+	}
+
+	/**
+	 * The largest value in another format, or negative infinity if there are none.
+	 *
+	 * @param to_format the format to report the maximum in
+	 */
+	public double getMax(long to_format) {
+		if (count == 0)
+			return Double.NEGATIVE_INFINITY;
+		ConversionPlan plan = linearPlan(to_format, format);
+		return plan.apply(plan.getScale() < 0 ? min : max);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s{count=%d, sum=%f, min=%f, average=%f, max=%f, format=0x%x}",
+				getClass().getSimpleName(), getCount(), getSum(), getMin(), getAverage(), getMax(), format);
+	}
+
+	/**
+	 * Kahan summation, the same approach as <code>DoubleSummaryStatistics</code>.
+	 */
+	private void add(double value) {
+		double y = value - compensation;
+		double t = sum + y;
+		compensation = (t - sum) - y;
+		sum = t;
+	}
+
+	/**
+	 * Widen the range with comparisons rather than <code>Math.min</code>, so a NaN is
+	 * ignored here the same way it is by {@link #accept(double)}.
+	 */
+	private void minMax(double lo, double hi) {
+		if (lo < min)
+			min = lo;
+		if (hi > max)
+			max = hi;
+	}
+
+	private static ConversionPlan linearPlan(long to_format, long from_format) {
+		ConversionPlan plan = Convert.plan(to_format, from_format);
+		if (!plan.isAffine())
+			throw new IllegalArgumentException("Not a linear conversion: 0x" + Long.toHexString(from_format) + " to 0x" + Long.toHexString(to_format));
+		return plan;
+	}
+}
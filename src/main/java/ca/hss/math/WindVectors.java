@@ -0,0 +1,227 @@
+/**
+ * WindVectors.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static ca.hss.math.General.TWO_PI;
+
+/**
+ * Splits wind speeds and directions into east (u) and north (v) components and puts them
+ * back together, for whole arrays at a time. The components are in the same unit as the
+ * speeds.
+ *
+ * Directions can be in any angle {@link Convert.STORAGE_FORMAT}. Compass directions are
+ * clockwise from north and cartesian directions counter clockwise from east. By default a
+ * direction is the way the wind is blowing towards; meteorological directions, the way
+ * the wind is blowing from, are rotated by 180&deg;.
+ *
+ * <h3>Fast trigonometry</h3>
+ * When created with <code>fastTrig</code> the trigonometric functions are replaced by
+ * interpolated lookup tables. Sine and cosine are interpolated from a 4096 entry table and
+ * have an absolute error below 3e-7. The arc tangent is interpolated from a 4096 entry
+ * table over [0, 1] and has an absolute error below 1e-8 radians. Speeds are always
+ * computed exactly.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class WindVectors {
+	private static final int TABLE_BITS = 12;
+	private static final int TABLE_SIZE = 1 << TABLE_BITS;
+	private static final double[] SIN = new double[TABLE_SIZE + 1];
+	private static final double[] ATAN = new double[TABLE_SIZE + 2];
+
+	static {
+		for (int i = 0; i <= TABLE_SIZE; i++)
+			SIN[i] = java.lang.Math.sin(TWO_PI * i / TABLE_SIZE);
+		for (int i = 0; i <= TABLE_SIZE + 1; i++)
+			ATAN[i] = java.lang.Math.atan((double)i / TABLE_SIZE);
+	}
+
+	private final long directionFormat;
+	private final boolean compass;
+	private final boolean meteorological;
+	private final boolean fastTrig;
+	private final double toRadian;
+
+	/**
+	 * @param directionFormat the angle format of the directions, ie. <code>ANGLE | COMPASS | DEGREE</code>
+	 * @param meteorological are directions the way the wind is blowing from instead of towards
+	 * @param fastTrig use lookup tables instead of <code>Math.sin</code>, <code>Math.cos</code> and <code>Math.atan2</code>
+	 */
+	public WindVectors(long directionFormat, boolean meteorological, boolean fastTrig) {
+		if ((directionFormat & ~Convert.STORAGE_FORMAT.ANGLE_MASK) != Convert.STORAGE_FORMAT.ANGLE)
+			throw new IllegalArgumentException("Not an angle format: 0x" + Long.toHexString(directionFormat));
+		this.directionFormat = directionFormat;
+		this.compass = (directionFormat & Convert.STORAGE_FORMAT.ANGLE_ROTATION_MASK) == Convert.STORAGE_FORMAT.COMPASS;
+		this.meteorological = meteorological;
+		this.fastTrig = fastTrig;
+		this.toRadian = Convert.plan(Convert.STORAGE_FORMAT.ANGLE, directionFormat & ~Convert.STORAGE_FORMAT.ANGLE_ROTATION_MASK).getScale();
+	}
+
+	public long getDirectionFormat() {
+		return directionFormat;
+	}
+
+	public boolean isMeteorological() {
+		return meteorological;
+	}
+
+	public boolean isFastTrig() {
+		return fastTrig;
+	}
+
+	/**
+	 * Split speeds and directions into u and v components.
+	 *
+	 * @param speed the wind speeds
+	 * @param direction the wind directions
+	 * @param srcOff the index of the first speed and direction
+	 * @param u the array to store the east components in
+	 * @param v the array to store the north components in
+	 * @param dstOff the index in <code>u</code> and <code>v</code> to store the first components at
+	 * @param len the number of vectors
+	 */
+	public void decompose(double[] speed, double[] direction, int srcOff, double[] u, double[] v, int dstOff, int len) {
+		ConversionPlan.checkRange(speed.length, srcOff, len);
+		ConversionPlan.checkRange(direction.length, srcOff, len);
+		ConversionPlan.checkRange(u.length, dstOff, len);
+		ConversionPlan.checkRange(v.length, dstOff, len);
+		//a compass angle's sine is the east component, a cartesian angle's cosine is
+		final double[] east = compass ? u : v;
+		final double[] north = compass ? v : u;
+		final double sign = meteorological ? -1.0 : 1.0;
+		final double scale = toRadian;
+		if (fastTrig) {
+			for (int i = 0; i < len; i++) {
+				double s = speed[srcOff + i] * sign;
+				double a = direction[srcOff + i] * scale;
+				east[dstOff + i] = s * fastSin(a);
+				north[dstOff + i] = s * fastCos(a);
+			}
+		}
+		else {
+			for (int i = 0; i < len; i++) {
+				double s = speed[srcOff + i] * sign;
+				double a = direction[srcOff + i] * scale;
+				east[dstOff + i] = s * java.lang.Math.sin(a);
+				north[dstOff + i] = s * java.lang.Math.cos(a);
+			}
+		}
+	}
+
+	/**
+	 * Split every speed and direction into u and v components.
+	 */
+	public void decompose(double[] speed, double[] direction, double[] u, double[] v) {
+		decompose(speed, direction, 0, u, v, 0, speed.length);
+	}
+
+	/**
+	 * Split every speed and direction into u and v components on multiple threads.
+	 */
+	public ParallelConverter.Partition decompose(final double[] speed, final double[] direction, final double[] u, final double[] v,
+			ParallelConverter converter) {
+		ConversionPlan.checkRange(direction.length, 0, speed.length);
+		ConversionPlan.checkRange(u.length, 0, speed.length);
+		ConversionPlan.checkRange(v.length, 0, speed.length);
+		return converter.run(speed.length, (start, end) -> decompose(speed, direction, start, u, v, start, end - start));
+	}
+
+	/**
+	 * Combine u and v components into speeds and directions. Directions are normalized
+	 * to a single turn. Calm vectors have a direction of 0.
+	 *
+	 * @param u the east components
+	 * @param v the north components
+	 * @param srcOff the index of the first components
+	 * @param speed the array to store the speeds in
+	 * @param direction the array to store the directions in
+	 * @param dstOff the index in <code>speed</code> and <code>direction</code> to store the first vector at
+	 * @param len the number of vectors
+	 */
+	public void recompose(double[] u, double[] v, int srcOff, double[] speed, double[] direction, int dstOff, int len) {
+		ConversionPlan.checkRange(u.length, srcOff, len);
+		ConversionPlan.checkRange(v.length, srcOff, len);
+		ConversionPlan.checkRange(speed.length, dstOff, len);
+		ConversionPlan.checkRange(direction.length, dstOff, len);
+		final double[] east = compass ? u : v;
+		final double[] north = compass ? v : u;
+		final double sign = meteorological ? -1.0 : 1.0;
+		final double scale = 1.0 / toRadian;
+		for (int i = 0; i < len; i++) {
+			double x = east[srcOff + i] * sign;
+			double y = north[srcOff + i] * sign;
+			double s = java.lang.Math.sqrt(x * x + y * y);
+			double a = fastTrig ? fastAtan2(x, y) : java.lang.Math.atan2(x, y);
+			speed[dstOff + i] = s;
+			direction[dstOff + i] = s == 0.0 ? 0.0 : General.reduce(a, TWO_PI) * scale;
+		}
+	}
+
+	/**
+	 * Combine every pair of u and v components into speeds and directions.
+	 */
+	public void recompose(double[] u, double[] v, double[] speed, double[] direction) {
+		recompose(u, v, 0, speed, direction, 0, u.length);
+	}
+
+	/**
+	 * Combine every pair of u and v components into speeds and directions on multiple threads.
+	 */
+	public ParallelConverter.Partition recompose(final double[] u, final double[] v, final double[] speed, final double[] direction,
+			ParallelConverter converter) {
+		ConversionPlan.checkRange(v.length, 0, u.length);
+		ConversionPlan.checkRange(speed.length, 0, u.length);
+		ConversionPlan.checkRange(direction.length, 0, u.length);
+		return converter.run(u.length, (start, end) -> recompose(u, v, start, speed, direction, start, end - start));
+	}
+
+	/**
+	 * Sine from the lookup table, interpolated linearly.
+	 */
+	static double fastSin(double radians) {
+		double t = radians * (TABLE_SIZE / TWO_PI);
+		double f = java.lang.Math.floor(t);
+		int i = (int)((long)f & (TABLE_SIZE - 1));
+		double frac = t - f;
+		return SIN[i] + (SIN[i + 1] - SIN[i]) * frac;
+	}
+
+	static double fastCos(double radians) {
+		return fastSin(radians + General.HALF_PI);
+	}
+
+	/**
+	 * <code>atan2(y, x)</code> from the lookup table. The ratio of the smaller to the larger
+	 * component is always in [0, 1] so a single table covers every octant.
+	 */
+	static double fastAtan2(double y, double x) {
+		double ax = java.lang.Math.abs(x), ay = java.lang.Math.abs(y);
+		if (ax == 0.0 && ay == 0.0)
+			return java.lang.Math.atan2(y, x);
+		boolean swap = ay > ax;
+		double t = (swap ? ax / ay : ay / ax) * TABLE_SIZE;
+		int i = (int)t;
+		double a = ATAN[i] + (ATAN[i + 1] - ATAN[i]) * (t - i);
+		if (swap)
+			a = General.HALF_PI - a;
+		if (x < 0.0)
+			a = General.PI - a;
+		return y < 0.0 ? -a : a;
+	}
+}
@@ -0,0 +1,784 @@
+/**
+ * NumberScanner.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.text;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import ca.hss.general.DecimalUtils;
+
+/**
+ * Parses numbers from text without throwing exceptions. Each scan method returns whether
+ * the text was a valid number and, if it was, the value can be read from {@link #getDouble()},
+ * {@link #getLong()} or {@link #getInt()}, so invalid input costs no more than valid input.
+ *
+ * Text can be scanned from a range of a {@link CharSequence}, a <code>char[]</code> or a
+ * <code>byte[]</code>, where each byte is a single ISO-8859-1 character. Doubles accept the
+ * same text as {@link Double#parseDouble(String)} and integers the same text as
+ * {@link Long#parseLong(String)}. Decimals with up to 15 significant digits and small
+ * exponents are computed directly and exactly, other values fall back to
+ * {@link Double#parseDouble(String)} once the text is known to be valid.
+ *
+ * The parse methods read a number from the start of a <code>byte[]</code> region or a
+ * {@link ByteBuffer}, ie. a memory mapped file, and return the number of bytes that were
+ * consumed, or 0 if the bytes don't start with a number. They use the decimal separator
+ * of the locale set in {@link DecimalUtils} unless one is given and don't create any
+ * objects unless a value has more than 15 significant digits or a large exponent.
+ *
+ * There is one state machine for doubles and one for integers over a {@link CharSequence},
+ * which <code>char[]</code> ranges and direct buffers are read through with views that each
+ * scanner reuses, and a copy of each
+ * over <code>byte[]</code> so heap buffers and byte arrays are read without an interface call
+ * per character.
+ *
+ * A scanner keeps the last value so instances are not thread safe, but they can be reused
+ * for any number of values.
+ */
+public final class NumberScanner {
+	private static final double POW10[] = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	private static final String NAN = "NaN";
+	private static final String INFINITY = "Infinity";
+
+	private double doubleValue;
+	private long longValue;
+	//the value found by the state machines, only kept if the whole scan succeeds
+	private double pendingDouble;
+	private long pendingLong;
+	private ByteChars direct;
+	private ArrayChars charArray;
+
+	/**
+	 * Is the text a valid double.
+	 */
+	public static boolean isDouble(CharSequence text) {
+		return text != null && new NumberScanner().scanDouble(text);
+	}
+
+	/**
+	 * Is the text a valid long.
+	 */
+	public static boolean isLong(CharSequence text) {
+		return text != null && new NumberScanner().scanLong(text);
+	}
+
+	/**
+	 * Is the text a valid int.
+	 */
+	public static boolean isInt(CharSequence text) {
+		return text != null && new NumberScanner().scanInt(text);
+	}
+
+	/**
+	 * Is the character a decimal digit, in any script.
+	 */
+	public static boolean isDigit(char c) {
+		return digit(c) >= 0;
+	}
+
+	/**
+	 * The last double that was scanned successfully.
+	 */
+	public double getDouble() {
+		return doubleValue;
+	}
+
+	/**
+	 * The last long that was scanned successfully.
+	 */
+	public long getLong() {
+		return longValue;
+	}
+
+	/**
+	 * The last int that was scanned successfully.
+	 */
+	public int getInt() {
+		return (int)longValue;
+	}
+
+	public boolean scanDouble(CharSequence text) {
+		return scanDouble(text, 0, text.length());
+	}
+
+	/**
+	 * Scan a double. Leading and trailing whitespace is ignored.
+	 *
+	 * @param text the text to scan
+	 * @param start the index of the first character
+	 * @param end the index after the last character
+	 * @return true if the range is a valid double
+	 */
+	public boolean scanDouble(CharSequence text, int start, int end) {
+		if (number(text, start, end, '.', true) < 0)
+			return false;
+		doubleValue = pendingDouble;
+		return true;
+	}
+
+	/**
+	 * Scan a double. Leading and trailing whitespace is ignored.
+	 *
+	 * @param text the characters to scan
+	 * @param start the index of the first character
+	 * @param end the index after the last character
+	 * @return true if the range is a valid double
+	 */
+	public boolean scanDouble(char[] text, int start, int end) {
+		boolean valid = scanDouble(wrap(text), start, end);
+		charArray.array = null;
+		return valid;
+	}
+
+	/**
+	 * Scan a double from ISO-8859-1 bytes. Leading and trailing whitespace is ignored.
+	 *
+	 * @param text the bytes to scan
+	 * @param start the index of the first byte
+	 * @param end the index after the last byte
+	 * @return true if the range is a valid double
+	 */
+	public boolean scanDouble(byte[] text, int start, int end) {
+		if (number(text, start, end, '.', true) < 0)
+			return false;
+		doubleValue = pendingDouble;
+		return true;
+	}
+
+	public boolean scanLong(CharSequence text) {
+		return scanLong(text, 0, text.length());
+	}
+
+	/**
+	 * Scan a long. Whitespace isn't allowed.
+	 *
+	 * @param text the text to scan
+	 * @param start the index of the first character
+	 * @param end the index after the last character
+	 * @return true if the range is a valid long
+	 */
+	public boolean scanLong(CharSequence text, int start, int end) {
+		if (integer(text, start, end) != end)
+			return false;
+		longValue = pendingLong;
+		return true;
+	}
+
+	/**
+	 * Scan a long. Whitespace isn't allowed.
+	 *
+	 * @param text the characters to scan
+	 * @param start the index of the first character
+	 * @param end the index after the last character
+	 * @return true if the range is a valid long
+	 */
+	public boolean scanLong(char[] text, int start, int end) {
+		boolean valid = scanLong(wrap(text), start, end);
+		charArray.array = null;
+		return valid;
+	}
+
+	/**
+	 * Scan a long from ISO-8859-1 bytes. Whitespace isn't allowed.
+	 *
+	 * @param text the bytes to scan
+	 * @param start the index of the first byte
+	 * @param end the index after the last byte
+	 * @return true if the range is a valid long
+	 */
+	public boolean scanLong(byte[] text, int start, int end) {
+		if (integer(text, start, end) != end)
+			return false;
+		longValue = pendingLong;
+		return true;
+	}
+
+	public boolean scanInt(CharSequence text) {
+		return scanInt(text, 0, text.length());
+	}
+
+	/**
+	 * Scan an int. Whitespace isn't allowed.
+	 *
+	 * @return true if the range is a valid int
+	 */
+	public boolean scanInt(CharSequence text, int start, int end) {
+		if (integer(text, start, end) != end || !isInt(pendingLong))
+			return false;
+		longValue = pendingLong;
+		return true;
+	}
+
+	/**
+	 * Scan an int. Whitespace isn't allowed.
+	 *
+	 * @return true if the range is a valid int
+	 */
+	public boolean scanInt(char[] text, int start, int end) {
+		boolean valid = scanInt(wrap(text), start, end);
+		charArray.array = null;
+		return valid;
+	}
+
+	/**
+	 * Scan an int from ISO-8859-1 bytes. Whitespace isn't allowed.
+	 *
+	 * @return true if the range is a valid int
+	 */
+	public boolean scanInt(byte[] text, int start, int end) {
+		if (integer(text, start, end) != end || !isInt(pendingLong))
+			return false;
+		longValue = pendingLong;
+		return true;
+	}
+
+	/**
+	 * Parse a double from the start of a region of bytes using the decimal separator of
+	 * the locale set in {@link DecimalUtils}.
+	 *
+	 * @return the number of bytes consumed, 0 if the region doesn't start with a number
+	 */
+	public int parseDouble(byte[] text, int start, int end) {
+		return parseDouble(text, start, end, DecimalUtils.getDecimalSeparator());
+	}
+
+	/**
+	 * Parse a double from the start of a region of bytes. Parsing stops at the first byte
+	 * that can't be part of the number, so an exponent marker that isn't followed by digits
+	 * isn't consumed. Whitespace isn't skipped.
+	 *
+	 * @param text the bytes to parse
+	 * @param start the index of the first byte
+	 * @param end the index after the last byte that can be read
+	 * @param decimalSeparator the decimal separator, separators outside of ISO-8859-1 are replaced by '.'
+	 * @return the number of bytes consumed, 0 if the region doesn't start with a number
+	 */
+	public int parseDouble(byte[] text, int start, int end, char decimalSeparator) {
+		int i = number(text, start, end, separator(decimalSeparator), false);
+		if (i < 0)
+			return 0;
+		doubleValue = pendingDouble;
+		return i - start;
+	}
+
+	/**
+	 * Parse a double from the position of a buffer using the decimal separator of the
+	 * locale set in {@link DecimalUtils}.
+	 *
+	 * @return the number of bytes consumed, 0 if the buffer doesn't start with a number
+	 */
+	public int parseDouble(ByteBuffer buf) {
+		return parseDouble(buf, DecimalUtils.getDecimalSeparator());
+	}
+
+	/**
+	 * Parse a double from the position of a buffer. The position is moved past the bytes
+	 * that were consumed. Heap buffers are parsed from their backing array and other
+	 * buffers, ie. memory mapped files, are read in place.
+	 *
+	 * @param buf the buffer to parse, up to its limit
+	 * @param decimalSeparator the decimal separator, separators outside of ISO-8859-1 are replaced by '.'
+	 * @return the number of bytes consumed, 0 if the buffer doesn't start with a number
+	 */
+	public int parseDouble(ByteBuffer buf, char decimalSeparator) {
+		int consumed;
+		if (buf.hasArray())
+			consumed = parseDouble(buf.array(), buf.arrayOffset() + buf.position(), buf.arrayOffset() + buf.limit(), decimalSeparator);
+		else {
+			int i = number(wrap(buf), buf.position(), buf.limit(), separator(decimalSeparator), false);
+			direct.buf = null;
+			if (i < 0)
+				return 0;
+			doubleValue = pendingDouble;
+			consumed = i - buf.position();
+		}
+		buf.position(buf.position() + consumed);
+		return consumed;
+	}
+
+	/**
+	 * Parse a long from the start of a region of bytes. Parsing stops at the first byte
+	 * that isn't a digit.
+	 *
+	 * @param text the bytes to parse
+	 * @param start the index of the first byte
+	 * @param end the index after the last byte that can be read
+	 * @return the number of bytes consumed, 0 if the region doesn't start with a number or it overflows a long
+	 */
+	public int parseLong(byte[] text, int start, int end) {
+		int i = integer(text, start, end);
+		if (i < 0)
+			return 0;
+		longValue = pendingLong;
+		return i - start;
+	}
+
+	/**
+	 * Parse a long from the position of a buffer. The position is moved past the bytes
+	 * that were consumed.
+	 *
+	 * @return the number of bytes consumed, 0 if the buffer doesn't start with a number or it overflows a long
+	 */
+	public int parseLong(ByteBuffer buf) {
+		int consumed;
+		if (buf.hasArray())
+			consumed = parseLong(buf.array(), buf.arrayOffset() + buf.position(), buf.arrayOffset() + buf.limit());
+		else {
+			int i = integer(wrap(buf), buf.position(), buf.limit());
+			direct.buf = null;
+			if (i < 0)
+				return 0;
+			longValue = pendingLong;
+			consumed = i - buf.position();
+		}
+		buf.position(buf.position() + consumed);
+		return consumed;
+	}
+
+	/**
+	 * The double state machine. Scanning (<code>whole</code>) trims the range, also accepts
+	 * hexadecimal and a d or f suffix, and fails unless the entire range is a number. Parsing
+	 * reads the longest number at the start of the range.
+	 *
+	 * @param sep the decimal separator
+	 * @return the index after the number or -1 if there isn't one, the value is left in <code>pendingDouble</code>
+	 */
+	private int number(CharSequence text, int start, int end, int sep, boolean whole) {
+		if (whole) {
+			while (start < end && text.charAt(start) <= ' ')
+				start++;
+			while (end > start && text.charAt(end - 1) <= ' ')
+				end--;
+		}
+		int i = start;
+		if (i >= end)
+			return -1;
+		boolean negative = false;
+		char c = text.charAt(i);
+		if (c == '-' || c == '+') {
+			negative = c == '-';
+			if (++i == end)
+				return -1;
+			c = text.charAt(i);
+		}
+		if (c == 'N' || c == 'I') {
+			String word = c == 'N' ? NAN : INFINITY;
+			if (end - i < word.length())
+				return -1;
+			for (int j = 0; j < word.length(); j++) {
+				if (text.charAt(i + j) != word.charAt(j))
+					return -1;
+			}
+			special(c, negative);
+			i += word.length();
+			return whole && i != end ? -1 : i;
+		}
+		if (whole && c == '0' && i + 1 < end && (text.charAt(i + 1) | 0x20) == 'x')
+			return hex(text.subSequence(start, end).toString()) ? end : -1;
+		long mantissa = 0;
+		int digits = 0, exponent = 0;
+		boolean any = false;
+		for (; i < end; i++) {
+			int d = text.charAt(i) - '0';
+			if (d < 0 || d > 9)
+				break;
+			any = true;
+			if (digits < 18) {
+				mantissa = mantissa * 10 + d;
+				if (mantissa != 0)
+					digits++;
+			}
+			else
+				exponent++;
+		}
+		if (i < end && text.charAt(i) == sep) {
+			for (i++; i < end; i++) {
+				int d = text.charAt(i) - '0';
+				if (d < 0 || d > 9)
+					break;
+				any = true;
+				if (digits < 18) {
+					mantissa = mantissa * 10 + d;
+					if (mantissa != 0)
+						digits++;
+					exponent--;
+				}
+			}
+		}
+		if (!any)
+			return -1;
+		//an exponent marker is only part of the number if digits follow it
+		if (i < end && (text.charAt(i) | 0x20) == 'e') {
+			int j = i + 1;
+			boolean negExp = false;
+			if (j < end && (text.charAt(j) == '-' || text.charAt(j) == '+')) {
+				negExp = text.charAt(j) == '-';
+				j++;
+			}
+			int first = j, exp = 0;
+			for (; j < end; j++) {
+				int d = text.charAt(j) - '0';
+				if (d < 0 || d > 9)
+					break;
+				if (exp < 100000)
+					exp = exp * 10 + d;
+			}
+			if (j > first) {
+				exponent += negExp ? -exp : exp;
+				i = j;
+			}
+		}
+		final int last = i;
+		if (whole) {
+			if (i < end && isSuffix(text.charAt(i)))
+				i++;
+			if (i != end)
+				return -1;
+		}
+		if (!fast(negative, mantissa, exponent)) {
+			char[] chars = new char[last - start];
+			for (int j = 0; j < chars.length; j++) {
+				char b = text.charAt(start + j);
+				chars[j] = b == sep ? '.' : b;
+			}
+			pendingDouble = Double.parseDouble(new String(chars));
+		}
+		return i;
+	}
+
+	/**
+	 * {@link #number(CharSequence, int, int, int, boolean)} over ISO-8859-1 bytes.
+	 */
+	private int number(byte[] text, int start, int end, int sep, boolean whole) {
+		if (whole) {
+			while (start < end && (text[start] & 0xff) <= ' ')
+				start++;
+			while (end > start && (text[end - 1] & 0xff) <= ' ')
+				end--;
+		}
+		int i = start;
+		if (i >= end)
+			return -1;
+		boolean negative = false;
+		int c = text[i] & 0xff;
+		if (c == '-' || c == '+') {
+			negative = c == '-';
+			if (++i == end)
+				return -1;
+			c = text[i] & 0xff;
+		}
+		if (c == 'N' || c == 'I') {
+			String word = c == 'N' ? NAN : INFINITY;
+			if (end - i < word.length())
+				return -1;
+			for (int j = 0; j < word.length(); j++) {
+				if (text[i + j] != word.charAt(j))
+					return -1;
+			}
+			special((char)c, negative);
+			i += word.length();
+			return whole && i != end ? -1 : i;
+		}
+		if (whole && c == '0' && i + 1 < end && (text[i + 1] | 0x20) == 'x')
+			return hex(new String(text, start, end - start, StandardCharsets.ISO_8859_1)) ? end : -1;
+		long mantissa = 0;
+		int digits = 0, exponent = 0;
+		boolean any = false;
+		for (; i < end; i++) {
+			int d = text[i] - '0';
+			if (d < 0 || d > 9)
+				break;
+			any = true;
+			if (digits < 18) {
+				mantissa = mantissa * 10 + d;
+				if (mantissa != 0)
+					digits++;
+			}
+			else
+				exponent++;
+		}
+		if (i < end && (text[i] & 0xff) == sep) {
+			for (i++; i < end; i++) {
+				int d = text[i] - '0';
+				if (d < 0 || d > 9)
+					break;
+				any = true;
+				if (digits < 18) {
+					mantissa = mantissa * 10 + d;
+					if (mantissa != 0)
+						digits++;
+					exponent--;
+				}
+			}
+		}
+		if (!any)
+			return -1;
+		if (i < end && (text[i] | 0x20) == 'e') {
+			int j = i + 1;
+			boolean negExp = false;
+			if (j < end && (text[j] == '-' || text[j] == '+')) {
+				negExp = text[j] == '-';
+				j++;
+			}
+			int first = j, exp = 0;
+			for (; j < end; j++) {
+				int d = text[j] - '0';
+				if (d < 0 || d > 9)
+					break;
+				if (exp < 100000)
+					exp = exp * 10 + d;
+			}
+			if (j > first) {
+				exponent += negExp ? -exp : exp;
+				i = j;
+			}
+		}
+		final int last = i;
+		if (whole) {
+			if (i < end && isSuffix((char)(text[i] & 0xff)))
+				i++;
+			if (i != end)
+				return -1;
+		}
+		if (!fast(negative, mantissa, exponent)) {
+			char[] chars = new char[last - start];
+			for (int j = 0; j < chars.length; j++) {
+				int b = text[start + j] & 0xff;
+				chars[j] = b == sep ? '.' : (char)b;
+			}
+			pendingDouble = Double.parseDouble(new String(chars));
+		}
+		return i;
+	}
+
+	/**
+	 * The integer state machine. Reads an optional sign and decimal digits, in any script,
+	 * from the start of the range.
+	 *
+	 * @return the index after the digits or -1 if there aren't any or they overflow a long, the value is left in <code>pendingLong</code>
+	 */
+	private int integer(CharSequence text, int start, int end) {
+		int i = start;
+		if (i >= end)
+			return -1;
+		boolean negative = false;
+		char c = text.charAt(i);
+		if (c == '-' || c == '+') {
+			negative = c == '-';
+			i++;
+		}
+		final int first = i;
+		//accumulate negatively so Long.MIN_VALUE doesn't overflow
+		final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		final long multmin = limit / 10;
+		long result = 0;
+		for (; i < end; i++) {
+			int d = digit(text.charAt(i));
+			if (d < 0)
+				break;
+			if (result < multmin)
+				return -1;
+			result *= 10;
+			if (result < limit + d)
+				return -1;
+			result -= d;
+		}
+		if (i == first)
+			return -1;
+		pendingLong = negative ? result : -result;
+		return i;
+	}
+
+	/**
+	 * {@link #integer(CharSequence, int, int)} over ISO-8859-1 bytes.
+	 */
+	private int integer(byte[] text, int start, int end) {
+		int i = start;
+		if (i >= end)
+			return -1;
+		boolean negative = false;
+		byte c = text[i];
+		if (c == '-' || c == '+') {
+			negative = c == '-';
+			i++;
+		}
+		final int first = i;
+		final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		final long multmin = limit / 10;
+		long result = 0;
+		for (; i < end; i++) {
+			int d = text[i] - '0';
+			if (d < 0 || d > 9)
+				break;
+			if (result < multmin)
+				return -1;
+			result *= 10;
+			if (result < limit + d)
+				return -1;
+			result -= d;
+		}
+		if (i == first)
+			return -1;
+		pendingLong = negative ? result : -result;
+		return i;
+	}
+
+	/**
+	 * Compute a decimal directly when the mantissa and the power of ten are both exactly
+	 * representable, so a single multiplication or division is correctly rounded.
+	 *
+	 * @return false if the value has to be parsed by {@link Double#parseDouble(String)}
+	 */
+	private boolean fast(boolean negative, long mantissa, int exponent) {
+		double value;
+		if (mantissa == 0)
+			value = 0.0;
+		else if (mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+			value = mantissa;
+			if (exponent < 0)
+				value /= POW10[-exponent];
+			else
+				value *= POW10[exponent];
+		}
+		else
+			return false;
+		pendingDouble = negative ? -value : value;
+		return true;
+	}
+
+	private void special(char c, boolean negative) {
+		if (c == 'N')
+			pendingDouble = Double.NaN;
+		else
+			pendingDouble = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Hexadecimal floating point is rare enough that it is left to the JDK.
+	 */
+	private boolean hex(String text) {
+		try {
+			pendingDouble = Double.parseDouble(text);
+			return true;
+		}
+		catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Read a buffer without a backing array through the reusable character view.
+	 */
+	private CharSequence wrap(ByteBuffer buf) {
+		if (direct == null)
+			direct = new ByteChars();
+		direct.buf = buf;
+		return direct;
+	}
+
+	/**
+	 * Read a character array through the reusable character view.
+	 */
+	private CharSequence wrap(char[] text) {
+		if (charArray == null)
+			charArray = new ArrayChars();
+		charArray.array = text;
+		return charArray;
+	}
+
+	private static int separator(char decimalSeparator) {
+		return decimalSeparator <= 0xff ? decimalSeparator : '.';
+	}
+
+	private static boolean isSuffix(char c) {
+		return c == 'd' || c == 'D' || c == 'f' || c == 'F';
+	}
+
+	private static boolean isInt(long value) {
+		return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * The value of a decimal digit, the same as <code>Character.digit(c, 10)</code>.
+	 */
+	private static int digit(char c) {
+		int d = c - '0';
+		if (d >= 0 && d <= 9)
+			return d;
+		return c < 0x80 ? -1 : Character.digit(c, 10);
+	}
+
+	/**
+	 * The bytes of a buffer as ISO-8859-1 characters, read with absolute gets.
+	 */
+	private static final class ByteChars implements CharSequence {
+		private ByteBuffer buf;
+
+		@Override
+		public int length() {
+			return buf.limit();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char)(buf.get(index) & 0xff);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			char[] chars = new char[end - start];
+			for (int i = 0; i < chars.length; i++)
+				chars[i] = charAt(start + i);
+			return new String(chars);
+		}
+
+		@Override
+		public String toString() {
+			return subSequence(0, length()).toString();
+		}
+	}
+
+	/**
+	 * A character array as a sequence, without the bounds and position bookkeeping of
+	 * <code>CharBuffer.wrap</code>.
+	 */
+	private static final class ArrayChars implements CharSequence {
+		private char[] array;
+
+		@Override
+		public int length() {
+			return array.length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return array[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(array, start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(array);
+		}
+	}
+}
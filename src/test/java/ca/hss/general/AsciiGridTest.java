@@ -0,0 +1,137 @@
+/**
+ * AsciiGridTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.hss.general.AsciiGridReader.Header;
+import ca.hss.general.DecimalUtils.DataType;
+
+/**
+ * Writes grids with {@link AsciiGridWriter} and reads them back with {@link AsciiGridReader}.
+ */
+public class AsciiGridTest {
+	@Test
+	public void testRoundTrip() throws IOException {
+		Random random = new Random(31);
+		Header header = new Header(37, 23, 480000.5, 5500000.0, false, 25.0, -9999.0);
+		double[][] grid = new double[header.getRows()][header.getColumns()];
+		for (double[] row : grid) {
+			for (int i = 0; i < row.length; i++)
+				row[i] = random.nextInt(10) == 0 ? -9999.0 : random.nextGaussian() * 1000.0;
+		}
+		byte[] bytes = write(header, DataType.FORCE_2, grid);
+
+		//a tiny buffer makes tokens cross refills
+		try (AsciiGridReader reader = new AsciiGridReader(new ByteArrayInputStream(bytes), 16)) {
+			Header read = reader.getHeader();
+			assertEquals(header.getColumns(), read.getColumns());
+			assertEquals(header.getRows(), read.getRows());
+			assertEquals(header.getX(), read.getX(), 0.0);
+			assertEquals(header.getY(), read.getY(), 0.0);
+			assertFalse(read.isCenter());
+			assertEquals(header.getCellSize(), read.getCellSize(), 0.0);
+			assertEquals(-9999.0, read.getNoData(), 0.0);
+			double[] row = new double[header.getColumns()];
+			for (double[] expected : grid) {
+				assertTrue(reader.readRow(row));
+				for (int i = 0; i < row.length; i++)
+					assertEquals(DecimalUtils.formatNumber(expected[i], DataType.FORCE_2), row[i], 0.0);
+			}
+			assertFalse(reader.readRow(row));
+			assertEquals(header.getRows(), reader.getRowsRead());
+		}
+	}
+
+	@Test
+	public void testNaNWithoutNoData() throws IOException {
+		Header header = new Header(3, 2, 0.0, 0.0, true, 1.0, Double.NaN);
+		byte[] bytes = write(header, DataType.FORCE_ATMOST_2, new double[][] { { 1.0, Double.NaN, 2.125 }, { Double.NaN, 0.5, -3.0 } });
+		String text = new String(bytes, StandardCharsets.ISO_8859_1);
+		assertFalse(text, text.contains("NODATA"));
+		assertTrue(text, text.contains("xllcenter"));
+		try (AsciiGridReader reader = new AsciiGridReader(new ByteArrayInputStream(bytes))) {
+			assertTrue(reader.getHeader().isCenter());
+			assertFalse(reader.getHeader().hasNoData());
+			float[] row = new float[3];
+			assertTrue(reader.readRow(row));
+			assertEquals(1.0f, row[0], 0.0f);
+			assertTrue(Float.isNaN(row[1]));
+			assertEquals(2.13f, row[2], 0.0f);
+			assertTrue(reader.readRow(row));
+			assertTrue(Float.isNaN(row[0]));
+		}
+	}
+
+	@Test
+	public void testInvalidHeader() {
+		String cells = "cellsize 1\n1 2\n";
+		checkInvalid("ncols 2\nnrows 1\nxllcenter 0\nyllcorner 0\n" + cells);
+		checkInvalid("ncols 2\nnrows 1\nxllcorner 0\nyllcenter 0\n" + cells);
+		checkInvalid("ncols 10.7\nnrows 1\n" + cells);
+		checkInvalid("ncols 2\nnrows 1e12\n" + cells);
+		checkInvalid("ncols 2\nnrows -1\n" + cells);
+		checkInvalid("ncols NaN\nnrows 1\n" + cells);
+		checkInvalid("nrows 1\n" + cells);
+		checkInvalid("ncols 2\nnrows\n");
+	}
+
+	@Test
+	public void testTruncated() throws IOException {
+		byte[] bytes = "ncols 2\nnrows 2\nxllcorner 0\nyllcorner 0\ncellsize 1\n1 2\n3\n".getBytes(StandardCharsets.ISO_8859_1);
+		try (AsciiGridReader reader = new AsciiGridReader(new ByteArrayInputStream(bytes))) {
+			double[] row = new double[2];
+			assertTrue(reader.readRow(row));
+			reader.readRow(row);
+			fail("the second row is incomplete");
+		}
+		catch (IOException e) {
+		}
+	}
+
+	private static byte[] write(Header header, DataType type, double[][] grid) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (AsciiGridWriter writer = new AsciiGridWriter(out, header, type)) {
+			for (double[] row : grid)
+				writer.writeRow(row);
+			assertEquals(header.getRows(), writer.getRowsWritten());
+		}
+		return out.toByteArray();
+	}
+
+	private static void checkInvalid(String text) {
+		try {
+			new AsciiGridReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.ISO_8859_1))).close();
+			fail(text);
+		}
+		catch (IOException e) {
+		}
+	}
+}
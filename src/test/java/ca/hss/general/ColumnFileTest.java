@@ -0,0 +1,137 @@
+/**
+ * ColumnFileTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ca.hss.general.DecimalUtils.DataType;
+import ca.hss.math.Convert;
+import ca.hss.math.Convert.STORAGE_FORMAT;
+import ca.hss.math.ConvertedDoubleView;
+
+/**
+ * Writes column files with {@link ColumnFileWriter} and reads them back with {@link ColumnFileReader}.
+ */
+public class ColumnFileTest {
+	private File file;
+
+	@After
+	public void deleteFile() {
+		if (file != null)
+			file.delete();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Random random = new Random(37);
+		double[] distances = new double[100003];
+		for (int i = 0; i < distances.length; i++)
+			distances[i] = random.nextDouble() * 5000.0;
+		float[] temperatures = new float[7];
+		for (int i = 0; i < temperatures.length; i++)
+			temperatures[i] = (float)(random.nextGaussian() * 10.0);
+		file = File.createTempFile("columns", ".hssc");
+		new ColumnFileWriter()
+				.addColumn("distance", distances, STORAGE_FORMAT.M, DataType.FORCE_2)
+				.addColumn("temperature", temperatures, STORAGE_FORMAT.CELSIUS, DataType.TEMPERATURE)
+				.addColumn("empty", new double[0], STORAGE_FORMAT.M, null)
+				.write(file);
+
+		try (ColumnFileReader reader = new ColumnFileReader(file)) {
+			assertEquals(Arrays.asList("distance", "temperature", "empty"), reader.getColumnNames());
+			ColumnFileReader.Column column = reader.getColumn("temperature");
+			assertTrue(column.isFloat());
+			assertEquals(DataType.TEMPERATURE, column.getDataType());
+			assertEquals(STORAGE_FORMAT.CELSIUS, column.getFormat());
+			assertEquals(temperatures.length, column.size());
+			assertEquals(DataType.UNKNOWN, reader.getColumn("empty").getDataType());
+
+			DoubleBuffer doubles = reader.getDoubles("distance");
+			double[] read = new double[doubles.remaining()];
+			doubles.get(read);
+			assertArrayEquals(distances, read, 0.0);
+			FloatBuffer floats = reader.getFloats("temperature");
+			float[] readFloats = new float[floats.remaining()];
+			floats.get(readFloats);
+			assertArrayEquals(temperatures, readFloats, 0.0f);
+
+			double[] km = reader.read("distance", STORAGE_FORMAT.KM);
+			ConvertedDoubleView view = reader.getView("temperature", STORAGE_FORMAT.FAHRENHEIT);
+			for (int i = 0; i < distances.length; i += 997)
+				assertEquals(Convert.convertUnit(distances[i], STORAGE_FORMAT.KM, STORAGE_FORMAT.M), km[i], 0.0);
+			for (int i = 0; i < temperatures.length; i++)
+				assertEquals(Convert.convertUnit(temperatures[i], STORAGE_FORMAT.FAHRENHEIT, STORAGE_FORMAT.CELSIUS), view.get(i), 0.0);
+			assertEquals(0, reader.read("empty", STORAGE_FORMAT.KM).length);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateColumn() {
+		new ColumnFileWriter()
+				.addColumn("values", new double[1], STORAGE_FORMAT.M, DataType.FORCE_2)
+				.addColumn("values", new float[1], STORAGE_FORMAT.M, DataType.FORCE_2);
+	}
+
+	@Test
+	public void testDuplicateColumnInFile() throws IOException {
+		file = File.createTempFile("columns", ".hssc");
+		new ColumnFileWriter()
+				.addColumn("colA", new double[] { 1.0 }, STORAGE_FORMAT.M, DataType.FORCE_2)
+				.addColumn("colB", new double[] { 2.0 }, STORAGE_FORMAT.M, DataType.FORCE_2)
+				.write(file);
+		//rename the second column to the first one's name
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		String text = new String(bytes, StandardCharsets.ISO_8859_1);
+		bytes[text.indexOf("colB") + 3] = 'A';
+		Files.write(file.toPath(), bytes);
+		try {
+			new ColumnFileReader(file).close();
+			fail("the file has two columns named colA");
+		}
+		catch (IOException e) {
+		}
+	}
+
+	@Test
+	public void testWrongType() throws IOException {
+		file = File.createTempFile("columns", ".hssc");
+		new ColumnFileWriter().addColumn("values", new double[3], STORAGE_FORMAT.M, DataType.FORCE_2).write(file);
+		try (ColumnFileReader reader = new ColumnFileReader(file)) {
+			reader.getFloats("values");
+			fail("values is a column of doubles");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * DecimalUtilsTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.general;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.CharBuffer;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ca.hss.general.DecimalUtils.DataType;
+import ca.hss.general.DecimalUtils.Rounding;
+
+/**
+ * Compares the formatting in {@link DecimalUtils} to {@link String#format(Locale, String, Object...)}.
+ */
+public class DecimalUtilsTest {
+	private static final DataType[] TYPES = { DataType.FORCE_0, DataType.FORCE_1, DataType.FORCE_2, DataType.FORCE_ATMOST_2 };
+	private static final double[] EDGE_CASES = { 0.0, -0.0, 0.5, 1.5, 2.5, -2.5, 1.005, 9.995, -0.001, -0.004, 0.125,
+		0.045, 123456.785, 0x1p42, -0x1p42 - 0.5, 1e15, 1e300, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN,
+		Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+	@After
+	public void resetLocale() {
+		DecimalUtils.setLocale(Locale.getDefault());
+	}
+
+	@Test
+	public void testFormatMatchesFormatter() {
+		Random random = new Random(7);
+		for (Locale locale : new Locale[] { Locale.US, Locale.GERMANY, new Locale("ar", "EG") }) {
+			DecimalUtils.setLocale(locale);
+			for (double value : EDGE_CASES)
+				checkFormat(locale, value);
+			for (int i = 0; i < 10000; i++) {
+				checkFormat(locale, (random.nextInt(2000001) - 1000000) / 1000.0);
+				checkFormat(locale, random.nextGaussian() * Math.pow(10, random.nextInt(20) - 6));
+				checkFormat(locale, Double.longBitsToDouble(random.nextLong()));
+			}
+		}
+	}
+
+	@Test
+	public void testNumberRounding() {
+		Random random = new Random(11);
+		char[] dst = new char[DecimalUtils.MAX_FORMAT_LENGTH];
+		for (int i = 0; i < 200000; i++) {
+			double value = i < EDGE_CASES.length ? EDGE_CASES[i] : (random.nextInt(2001) - 1000) * 0.005;
+			if (Double.isNaN(value))
+				continue;
+			for (DataType type : TYPES) {
+				String expected = DecimalUtils.formatLocaleless(DecimalUtils.formatNumber(value, type), type);
+				int len = DecimalUtils.format(dst, 0, value, type, Rounding.NUMBER, '.', '0');
+				assertEquals(value + " " + type, expected, new String(dst, 0, len));
+			}
+		}
+		int len = DecimalUtils.format(dst, 0, Double.NaN, DataType.FORCE_2, Rounding.NUMBER, '.', '0');
+		assertEquals("NaN", new String(dst, 0, len));
+		len = DecimalUtils.format(dst, 0, -0.001, DataType.FORCE_2, Rounding.NUMBER, '.', '0');
+		assertEquals("0.00", new String(dst, 0, len));
+	}
+
+	@Test
+	public void testValueOf() {
+		assertEquals(2.5, DecimalUtils.valueOf(" 2.5"), 0.0);
+		assertNull(DecimalUtils.valueOf("2.5x"));
+		assertNull(DecimalUtils.valueOf(null));
+	}
+
+	private static void checkFormat(Locale locale, double value) {
+		for (DataType type : TYPES) {
+			String expected = expected(locale, value, type);
+			String message = locale + " " + value + " " + type;
+			assertEquals(message, expected, DecimalUtils.format(value, type));
+			assertEquals(message, "x" + expected, DecimalUtils.format(new StringBuilder("x"), value, type).toString());
+			CharBuffer buffer = CharBuffer.allocate(DecimalUtils.MAX_FORMAT_LENGTH);
+			DecimalUtils.format(buffer, value, type).flip();
+			assertEquals(message, expected, buffer.toString());
+			assertEquals(message, expected(Locale.ENGLISH, value, type), DecimalUtils.formatLocaleless(value, type));
+		}
+	}
+
+	private static String expected(Locale locale, double value, DataType type) {
+		int decimals = type.getNumDecimals();
+		String s = String.format(locale, "%." + (decimals < 0 ? 2 : decimals) + "f", value);
+		if (decimals < 0 && !Double.isNaN(value) && !Double.isInfinite(value)) {
+			DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+			int len = s.length();
+			while (s.charAt(len - 1) == symbols.getZeroDigit())
+				len--;
+			if (s.charAt(len - 1) == symbols.getDecimalSeparator())
+				len--;
+			s = s.substring(0, len);
+		}
+		return s;
+	}
+}
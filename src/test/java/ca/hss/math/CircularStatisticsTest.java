@@ -0,0 +1,125 @@
+/**
+ * CircularStatisticsTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * Checks {@link CircularStatistics} across the wrap and between angle formats.
+ */
+public class CircularStatisticsTest {
+	private static final long COMPASS_DEGREE = STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.COMPASS | STORAGE_FORMAT.DEGREE;
+	private static final long CARTESIAN_RADIAN = STORAGE_FORMAT.ANGLE;
+
+	@Test
+	public void testMeanAcrossWrap() {
+		CircularStatistics s = CircularStatistics.of(new double[] { 350.0, 10.0 }, COMPASS_DEGREE);
+		assertAngle(0.0, s.getMeanDirection(), 360.0);
+		assertEquals(2, s.getCount());
+		assertEquals(java.lang.Math.cos(java.lang.Math.toRadians(10.0)), s.getResultantLength(), 1e-12);
+
+		s = CircularStatistics.of(new double[] { 80.0, 80.0, 80.0 }, COMPASS_DEGREE);
+		assertAngle(80.0, s.getMeanDirection(), 360.0);
+		assertEquals(1.0, s.getResultantLength(), 1e-12);
+		assertEquals(0.0, s.getCircularVariance(), 1e-12);
+		//compass 80 degrees is cartesian 10 degrees
+		assertAngle(java.lang.Math.toRadians(10.0), s.getMeanDirection(CARTESIAN_RADIAN), 2.0 * java.lang.Math.PI);
+	}
+
+	@Test
+	public void testNoMean() {
+		CircularStatistics s = new CircularStatistics(COMPASS_DEGREE);
+		assertTrue(Double.isNaN(s.getMeanDirection()));
+		assertTrue(Double.isNaN(s.getResultantLength()));
+		s.accept(90.0);
+		s.accept(270.0);
+		assertEquals(0.0, s.getResultantLength(), 1e-12);
+	}
+
+	@Test
+	public void testWeighted() {
+		CircularStatistics s = new CircularStatistics(COMPASS_DEGREE);
+		s.accept(0.0, 3.0);
+		s.accept(90.0, 3.0);
+		s.accept(270.0, 1.0);
+		assertEquals(7.0, s.getWeight(), 0.0);
+		assertEquals(3, s.getCount());
+		assertAngle(java.lang.Math.toDegrees(java.lang.Math.atan2(2.0, 3.0)), s.getMeanDirection(), 360.0);
+	}
+
+	@Test
+	public void testCombineFormats() {
+		Random random = new Random(47);
+		double[] degrees = new double[1001];
+		double[] radians = new double[degrees.length];
+		float[] floats = new float[degrees.length];
+		for (int i = 0; i < degrees.length; i++) {
+			degrees[i] = 30.0 + random.nextGaussian() * 40.0;
+			radians[i] = Convert.convertUnit(degrees[i], CARTESIAN_RADIAN, COMPASS_DEGREE);
+			floats[i] = (float)degrees[i];
+		}
+		CircularStatistics all = CircularStatistics.of(degrees, COMPASS_DEGREE);
+		CircularStatistics combined = CircularStatistics.of(degrees, 0, 500, COMPASS_DEGREE)
+				.combine(CircularStatistics.of(radians, 500, degrees.length - 500, CARTESIAN_RADIAN));
+		assertEquals(all.getCount(), combined.getCount());
+		assertAngle(all.getMeanDirection(), combined.getMeanDirection(), 360.0);
+		assertEquals(all.getResultantLength(), combined.getResultantLength(), 1e-12);
+
+		CircularStatistics single = new CircularStatistics(COMPASS_DEGREE);
+		for (double value : degrees)
+			single.accept(value);
+		assertAngle(all.getMeanDirection(), single.getMeanDirection(), 360.0);
+		CircularStatistics fromFloats = new CircularStatistics(COMPASS_DEGREE);
+		fromFloats.accept(floats, 0, floats.length);
+		assertEquals(all.getMeanDirection(), fromFloats.getMeanDirection(), 1e-5);
+	}
+
+	@Test
+	public void testParallel() {
+		Random random = new Random(53);
+		double[] values = new double[ParallelConverter.DEFAULT_THRESHOLD * 3];
+		for (int i = 0; i < values.length; i++)
+			values[i] = 200.0 + random.nextGaussian() * 90.0;
+		CircularStatistics serial = CircularStatistics.of(values, COMPASS_DEGREE);
+		CircularStatistics parallel = CircularStatistics.of(values, COMPASS_DEGREE, new ParallelConverter());
+		assertEquals(serial.getCount(), parallel.getCount());
+		assertAngle(serial.getMeanDirection(), parallel.getMeanDirection(), 360.0);
+		assertEquals(serial.getResultantLength(), parallel.getResultantLength(), 1e-12);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotAnAngle() {
+		new CircularStatistics(STORAGE_FORMAT.M);
+	}
+
+	/**
+	 * Compare angles the short way around the circle.
+	 */
+	private static void assertAngle(double expected, double actual, double turn) {
+		double diff = java.lang.Math.abs(actual - expected) % turn;
+		assertEquals(expected + " " + actual, 0.0, java.lang.Math.min(diff, turn - diff), turn * 1e-12);
+	}
+}
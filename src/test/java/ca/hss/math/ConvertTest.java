@@ -0,0 +1,255 @@
+/**
+ * ConvertTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static ca.hss.math.General.CARTESIAN_TO_COMPASS_RADIAN;
+import static ca.hss.math.General.COMPASS_TO_CARTESIAN_RADIAN;
+import static ca.hss.math.General.DEGREE_TO_RADIAN;
+import static ca.hss.math.General.RADIAN_TO_DEGREE;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * Compares {@link Convert#convertUnit(double, long, long)} to the implementation it replaced,
+ * which decoded the format bits on every call. Coordinates and conversions between derived and
+ * compound formats were added later and aren't compared.
+ */
+public class ConvertTest {
+	private static final long[][] CATEGORIES = {
+		{ STORAGE_FORMAT.MM, STORAGE_FORMAT.CM, STORAGE_FORMAT.M, STORAGE_FORMAT.KM, STORAGE_FORMAT.INCH, STORAGE_FORMAT.FOOT,
+			STORAGE_FORMAT.YARD, STORAGE_FORMAT.CHAIN, STORAGE_FORMAT.MILE, STORAGE_FORMAT.NAUTICAL_MILE, STORAGE_FORMAT.NAUTICAL_MILE_UK },
+		{ STORAGE_FORMAT.MM2, STORAGE_FORMAT.CM2, STORAGE_FORMAT.M2, STORAGE_FORMAT.HECTARE, STORAGE_FORMAT.KM2, STORAGE_FORMAT.IN2,
+			STORAGE_FORMAT.FT2, STORAGE_FORMAT.YD2, STORAGE_FORMAT.ACRE, STORAGE_FORMAT.MILE2 },
+		{ STORAGE_FORMAT.MM3, STORAGE_FORMAT.CM3, STORAGE_FORMAT.LITRE, STORAGE_FORMAT.M3, STORAGE_FORMAT.KM3, STORAGE_FORMAT.IN3,
+			STORAGE_FORMAT.FT3, STORAGE_FORMAT.YD3, STORAGE_FORMAT.MILE3, STORAGE_FORMAT.UK_FL_OZ, STORAGE_FORMAT.UK_PINT,
+			STORAGE_FORMAT.UK_QUART, STORAGE_FORMAT.UK_GALLON, STORAGE_FORMAT.BUSHEL, STORAGE_FORMAT.US_DRAM, STORAGE_FORMAT.US_FL_OZ,
+			STORAGE_FORMAT.US_FL_PINT, STORAGE_FORMAT.US_FL_QUART, STORAGE_FORMAT.US_GALLON, STORAGE_FORMAT.US_FL_BARREL,
+			STORAGE_FORMAT.US_DRY_PINT, STORAGE_FORMAT.US_DRY_QUART, STORAGE_FORMAT.US_DRY_BARREL },
+		{ STORAGE_FORMAT.KELVIN, STORAGE_FORMAT.CELSIUS, STORAGE_FORMAT.FAHRENHEIT, STORAGE_FORMAT.RANKINE },
+		{ STORAGE_FORMAT.KPA, STORAGE_FORMAT.PSI, STORAGE_FORMAT.BAR, STORAGE_FORMAT.ATM, STORAGE_FORMAT.TORR },
+		{ STORAGE_FORMAT.MILLIGRAM, STORAGE_FORMAT.GRAM, STORAGE_FORMAT.KG, STORAGE_FORMAT.TONNE, STORAGE_FORMAT.OUNCE,
+			STORAGE_FORMAT.LB, STORAGE_FORMAT.SHORT_TON, STORAGE_FORMAT.TON },
+		{ STORAGE_FORMAT.JOULE, STORAGE_FORMAT.KILOJOULE, STORAGE_FORMAT.ELECTRONVOLT, STORAGE_FORMAT.ERG, STORAGE_FORMAT.FT_LB,
+			STORAGE_FORMAT.CALORIE, STORAGE_FORMAT.KG_METRE, STORAGE_FORMAT.BTU, STORAGE_FORMAT.WATT, STORAGE_FORMAT.WATT_SECOND,
+			STORAGE_FORMAT.WATT_HOUR, STORAGE_FORMAT.KILOWATT, STORAGE_FORMAT.KILOWATT_SECOND, STORAGE_FORMAT.KILOWATT_HOUR,
+			STORAGE_FORMAT.THERM },
+		{ STORAGE_FORMAT.DECIMAL, STORAGE_FORMAT.PERCENT, STORAGE_FORMAT.DECIMAL_INVERT, STORAGE_FORMAT.PERCENT_INVERT },
+		{ STORAGE_FORMAT.ANGLE, STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.DEGREE, STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.ARCSECOND,
+			STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.COMPASS, STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.COMPASS | STORAGE_FORMAT.DEGREE,
+			STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.COMPASS | STORAGE_FORMAT.ARCSECOND },
+		{ STORAGE_FORMAT.TONS_PER_ACRE, STORAGE_FORMAT.KG_PER_M2 },
+		{ STORAGE_FORMAT.BTU_FT_S, STORAGE_FORMAT.KILOWATT_PER_M },
+	};
+	private static final long[] TIME_UNITS = { STORAGE_FORMAT.MICROSECOND, STORAGE_FORMAT.MILLISECOND, STORAGE_FORMAT.SECOND,
+		STORAGE_FORMAT.MINUTE, STORAGE_FORMAT.HOUR, STORAGE_FORMAT.DAY, STORAGE_FORMAT.WEEK, STORAGE_FORMAT.MONTH,
+		STORAGE_FORMAT.YEAR, STORAGE_FORMAT.DECADE, STORAGE_FORMAT.CENTURY };
+
+	@Test
+	public void testSimpleFormats() {
+		Random random = new Random(59);
+		for (long[] category : CATEGORIES) {
+			for (long from : category) {
+				for (long to : category)
+					check(random, to, from);
+			}
+		}
+		//pairs from different categories are left unchanged
+		check(random, STORAGE_FORMAT.KG, STORAGE_FORMAT.M);
+		check(random, STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.DEGREE, STORAGE_FORMAT.PERCENT);
+	}
+
+	@Test
+	public void testTimeModifiers() {
+		Random random = new Random(61);
+		long[] bases = { STORAGE_FORMAT.M, STORAGE_FORMAT.KM, STORAGE_FORMAT.FOOT, STORAGE_FORMAT.LITRE, STORAGE_FORMAT.KG,
+			STORAGE_FORMAT.CELSIUS, STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.DEGREE };
+		for (long from : bases) {
+			for (long to : bases) {
+				for (int i = 0; i < 40; i++) {
+					long fromTime = TIME_UNITS[random.nextInt(TIME_UNITS.length)] | (random.nextBoolean() ? STORAGE_FORMAT.TIME_MULT : STORAGE_FORMAT.TIME_DIV);
+					long toTime = TIME_UNITS[random.nextInt(TIME_UNITS.length)] | (random.nextBoolean() ? STORAGE_FORMAT.TIME_MULT : STORAGE_FORMAT.TIME_DIV);
+					check(random, to | toTime, from | fromTime);
+					check(random, to, from | fromTime);
+					check(random, to | toTime, from);
+				}
+			}
+		}
+		//pure time formats keep their historical results
+		for (long from : TIME_UNITS) {
+			for (long to : TIME_UNITS) {
+				check(random, to, from);
+				check(random, to | STORAGE_FORMAT.TIME_MULT, from);
+			}
+		}
+	}
+
+	@Test
+	public void testCompoundFormats() {
+		Random random = new Random(67);
+		List<Long> compounds = new ArrayList<>();
+		long[] numerators = { STORAGE_FORMAT.KG, STORAGE_FORMAT.LB, STORAGE_FORMAT.TONNE, STORAGE_FORMAT.KILOJOULE, STORAGE_FORMAT.BTU };
+		long[] denominators = { STORAGE_FORMAT.M2, STORAGE_FORMAT.HECTARE, STORAGE_FORMAT.ACRE, STORAGE_FORMAT.M, STORAGE_FORMAT.FOOT | STORAGE_FORMAT.MINUTE };
+		for (long n : numerators) {
+			for (long d : denominators)
+				compounds.add(Convert.compound(n, d));
+		}
+		for (long from : compounds) {
+			for (long to : compounds)
+				check(random, to, from);
+		}
+		check(random, STORAGE_FORMAT.KG, Convert.compound(STORAGE_FORMAT.KG, STORAGE_FORMAT.M2));
+		check(random, Convert.compound(STORAGE_FORMAT.KG, STORAGE_FORMAT.M2), STORAGE_FORMAT.KG);
+	}
+
+	private static void check(Random random, long to, long from) {
+		for (int i = 0; i < 20; i++) {
+			double value = i == 0 ? 0.0 : (random.nextDouble() - 0.5) * java.lang.Math.pow(10, random.nextInt(12) - 4);
+			double expected = Legacy.convertUnit(value, to, from);
+			double actual = Convert.convertUnit(value, to, from);
+			//plans fold each conversion into one multiply and add, so the last few bits can differ
+			double tolerance = 1e-12 * java.lang.Math.max(1.0, java.lang.Math.max(java.lang.Math.abs(expected), java.lang.Math.abs(value)));
+			assertEquals(Long.toHexString(from) + " to " + Long.toHexString(to) + " " + value, expected, actual, tolerance);
+		}
+	}
+
+	/**
+	 * The conversion before it was resolved into plans, with the time factors pulled into
+	 * {@link #time(double, long, boolean)}.
+	 */
+	private static final class Legacy {
+		static double convertUnit(double value, long to_format, long from_format) {
+			if (from_format == to_format)
+				return value;
+
+			if (((from_format & 0xffffffff00000000L) != 0) || ((to_format & 0xffffffff00000000L) != 0)) {
+				double val = convertUnit(value, (to_format >> 0x20) & 0x00000000ffffffffL, (from_format >> 0x20) & 0x00000000ffffffffL);
+				val = convertUnit(val, from_format & 0x00000000ffffffffL, to_format & 0x00000000ffffffffL);
+				return val;
+			}
+
+			if (from_format != 0 && to_format != 0) {
+				if (((from_format & STORAGE_FORMAT.TIME_MASK) != 0 && (from_format & (~STORAGE_FORMAT.TIME_MASK)) != 0) ||
+						((to_format & STORAGE_FORMAT.TIME_MASK) != 0 && (to_format & (~STORAGE_FORMAT.TIME_MASK)) != 0)) {
+					if ((from_format & STORAGE_FORMAT.TIME_MASK) != (to_format & STORAGE_FORMAT.TIME_MASK)) {
+						value = time(value, from_format & STORAGE_FORMAT.TIME_UNIT_MASK, (from_format & STORAGE_FORMAT.TIME_MULT) != 0);
+						value = time(value, to_format & STORAGE_FORMAT.TIME_UNIT_MASK, (to_format & STORAGE_FORMAT.TIME_MULT) == 0);
+					}
+				}
+				from_format &= (~STORAGE_FORMAT.TIME_MASK);
+				to_format &= (~STORAGE_FORMAT.TIME_MASK);
+			}
+
+			if (from_format >= 0x001 && from_format <= 0x00b && to_format >= 0x001 && to_format <= 0x00b)
+				return value * Convert.distance_translation[(int)(from_format - 0x001)] / Convert.distance_translation[(int)(to_format - 0x001)];
+			else if (from_format >= 0x400 && from_format <= 0x404 && to_format >= 0x400 && to_format <= 0x404) {
+				double kelvin = (value + Convert.temp_translate1[(int)(from_format - 0x400)]) / Convert.temp_translate2[(int)(from_format - 0x400)];
+				return kelvin * Convert.temp_translate2[(int)(to_format - 0x400)] - Convert.temp_translate1[(int)(to_format - 0x400)];
+			}
+			else if (from_format >= 0x200 && from_format <= 0x216 && to_format >= 0x200 && to_format <= 0x216)
+				return value * Convert.volume_translation[(int)(from_format - 0x200)] / Convert.volume_translation[(int)(to_format - 0x200)];
+			else if (from_format >= 0x100 && from_format <= 0x109 && to_format >= 0x100 && to_format <= 0x109)
+				return value * Convert.area_translation[(int)(from_format - 0x100)] / Convert.area_translation[(int)(to_format - 0x100)];
+			else if (from_format >= 0x4c0 && from_format <= 0x4c3 && to_format >= 0x4c0 && to_format <= 0x4c3) {
+				if (from_format != to_format) {
+					if (from_format == STORAGE_FORMAT.PERCENT)
+						value *= 0.01;
+					else if (from_format == STORAGE_FORMAT.PERCENT_INVERT)
+						value = (100.0 - value) * 0.01;
+					else if (from_format == STORAGE_FORMAT.DECIMAL_INVERT)
+						value = 1.0 - value;
+					if (to_format == STORAGE_FORMAT.PERCENT)
+						value *= 100.0;
+					else if (to_format == STORAGE_FORMAT.PERCENT_INVERT)
+						value = (100.0 - value) * 100.0;
+					else if (to_format == STORAGE_FORMAT.DECIMAL_INVERT)
+						value = 1.0 - value;
+				}
+				return value;
+			}
+			else if (from_format >= 0x600 && from_format <= 0x607 && to_format >= 0x600 && to_format <= 0x607)
+				return value * Convert.mass_translation[(int)(from_format - 0x600)] / Convert.mass_translation[(int)(to_format - 0x600)];
+			else if (from_format >= 0x700 && from_format <= 0x70a && to_format >= 0x700 && to_format <= 0x70a)
+				return value * Convert.energy_translation[(int)(from_format - 0x700)] / Convert.energy_translation[(int)(to_format - 0x700)];
+			else if (from_format >= 0x500 && from_format <= 0x504 && to_format >= 0x500 && to_format <= 0x504)
+				return value * Convert.pressure_translation[(int)(from_format - 0x500)] / Convert.pressure_translation[(int)(to_format - 0x500)];
+			else if (from_format >= 0x910 && from_format <= 0x919 && to_format >= 0x910 && to_format <= 0x919)
+				return value * Convert.intensity_translation[(int)(from_format - 0x910)] / Convert.intensity_translation[(int)(to_format - 0x910)];
+			else if (from_format >= 0x900 && from_format <= 0x909 && to_format >= 0x900 && to_format <= 0x909)
+				return value * Convert.consumption_translation[(int)(from_format - 0x900)] / Convert.consumption_translation[(int)(to_format - 0x900)];
+			else if (((from_format & (~STORAGE_FORMAT.ANGLE_MASK)) == STORAGE_FORMAT.ANGLE) &&
+					((to_format & (~STORAGE_FORMAT.ANGLE_MASK)) == STORAGE_FORMAT.ANGLE)) {
+				if ((from_format & STORAGE_FORMAT.ANGLE_MASK) != (to_format & STORAGE_FORMAT.ANGLE_MASK)) {
+					if ((from_format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.DEGREE)
+						value = DEGREE_TO_RADIAN(value);
+					else if ((from_format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.ARCSECOND)
+						value = DEGREE_TO_RADIAN(value / 3600.0);
+					if ((from_format & STORAGE_FORMAT.ANGLE_ROTATION_MASK) == STORAGE_FORMAT.COMPASS)
+						value = COMPASS_TO_CARTESIAN_RADIAN(value);
+					if ((to_format & STORAGE_FORMAT.ANGLE_ROTATION_MASK) == STORAGE_FORMAT.COMPASS)
+						value = CARTESIAN_TO_COMPASS_RADIAN(value);
+					if ((to_format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.DEGREE)
+						value = RADIAN_TO_DEGREE(value);
+					else if ((to_format & STORAGE_FORMAT.ANGLE_UNIT_MASK) == STORAGE_FORMAT.ARCSECOND)
+						value = RADIAN_TO_DEGREE(value) * 3600.0;
+				}
+				return value;
+			}
+			return value;
+		}
+
+		/**
+		 * Apply a time unit the way the old code did, multiplying by the seconds in the unit
+		 * when <code>toSeconds</code> is set and dividing otherwise. The microsecond and
+		 * millisecond factors are inverted and written as divisions, as they were.
+		 */
+		private static double time(double value, long unit, boolean toSeconds) {
+			if (unit == STORAGE_FORMAT.MICROSECOND)
+				return toSeconds ? value / 1000.0 : value * 1000.0;
+			if (unit == STORAGE_FORMAT.MILLISECOND)
+				return toSeconds ? value / 1000000.0 : value * 1000000.0;
+			double seconds;
+			if (unit == STORAGE_FORMAT.MINUTE)
+				seconds = 60.0;
+			else if (unit == STORAGE_FORMAT.HOUR)
+				seconds = 60.0 * 60.0;
+			else if (unit == STORAGE_FORMAT.DAY)
+				seconds = 24.0 * 60.0 * 60.0;
+			else if (unit == STORAGE_FORMAT.WEEK)
+				seconds = 604800.0;
+			else if (unit == STORAGE_FORMAT.MONTH)
+				seconds = 2629743.83;
+			else if (unit == STORAGE_FORMAT.YEAR)
+				seconds = 31556926.0;
+			else if (unit == STORAGE_FORMAT.DECADE)
+				seconds = 315569260.0;
+			else if (unit == STORAGE_FORMAT.CENTURY)
+				seconds = 3155692600.0;
+			else
+				return value;
+			return toSeconds ? value * seconds : value / seconds;
+		}
+	}
+}
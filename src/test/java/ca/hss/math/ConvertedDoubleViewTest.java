@@ -0,0 +1,94 @@
+/**
+ * ConvertedDoubleViewTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * Reads values through {@link ConvertedDoubleView} and compares them to {@link Convert#convertUnit(double, long, long)}.
+ */
+public class ConvertedDoubleViewTest {
+	private static final double[] VALUES = { 0.0, 1.0, 2.5, -3.75, 1000.0, 12345.678 };
+
+	@Test
+	public void testArray() {
+		ConvertedDoubleView view = ConvertedDoubleView.of(VALUES, 1, 4, STORAGE_FORMAT.M, STORAGE_FORMAT.KM);
+		assertEquals(4, view.size());
+		for (int i = 0; i < view.size(); i++)
+			assertEquals(Convert.convertUnit(VALUES[i + 1], STORAGE_FORMAT.M, STORAGE_FORMAT.KM), view.get(i), 0.0);
+		check(view, 1, false);
+	}
+
+	@Test
+	public void testBufferLimitChanged() {
+		DoubleBuffer buffer = DoubleBuffer.wrap(VALUES);
+		buffer.position(1);
+		ConvertedDoubleView view = ConvertedDoubleView.of(buffer, STORAGE_FORMAT.FAHRENHEIT, STORAGE_FORMAT.CELSIUS);
+		buffer.limit(1);
+		buffer.position(0);
+		assertEquals(VALUES.length - 1, view.size());
+		assertEquals(Convert.convertUnit(VALUES[4], STORAGE_FORMAT.FAHRENHEIT, STORAGE_FORMAT.CELSIUS), view.get(3), 0.0);
+		check(view, 1, false);
+	}
+
+	@Test
+	public void testFloatBufferLimitChanged() {
+		float[] floats = new float[VALUES.length];
+		for (int i = 0; i < floats.length; i++)
+			floats[i] = (float)VALUES[i];
+		FloatBuffer buffer = FloatBuffer.wrap(floats);
+		buffer.position(2);
+		ConvertedDoubleView view = ConvertedDoubleView.of(buffer, STORAGE_FORMAT.M, STORAGE_FORMAT.KM);
+		buffer.limit(0);
+		assertEquals(VALUES.length - 2, view.size());
+		check(view, 2, true);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfRange() {
+		ConvertedDoubleView.of(VALUES, 0, 2, STORAGE_FORMAT.M, STORAGE_FORMAT.KM).get(2);
+	}
+
+	/**
+	 * Every way of reading the view gives the same values.
+	 */
+	private static void check(ConvertedDoubleView view, int offset, boolean floats) {
+		long to = view.getPlan().getToFormat(), from = view.getPlan().getFromFormat();
+		double[] expected = new double[view.size()];
+		for (int i = 0; i < expected.length; i++) {
+			double value = floats ? (float)VALUES[offset + i] : VALUES[offset + i];
+			expected[i] = Convert.convertUnit(value, to, from);
+			assertEquals(expected[i], view.get(i), 0.0);
+		}
+		double[] bulk = new double[expected.length + 1];
+		view.get(0, bulk, 1, expected.length);
+		for (int i = 0; i < expected.length; i++)
+			assertEquals(expected[i], bulk[i + 1], 0.0);
+		assertArrayEquals(expected, view.stream().toArray(), 0.0);
+		assertArrayEquals(expected, view.parallelStream().toArray(), 0.0);
+	}
+}
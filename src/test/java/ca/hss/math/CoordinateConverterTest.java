@@ -0,0 +1,104 @@
+/**
+ * CoordinateConverterTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * Round trips coordinates through formatting, parsing and projection.
+ */
+public class CoordinateConverterTest {
+	@Test
+	public void testFormatParseRoundTrip() {
+		Random random = new Random(13);
+		for (int i = 0; i < 20000; i++) {
+			boolean latitude = random.nextBoolean();
+			double degrees = (random.nextDouble() * 2.0 - 1.0) * (latitude ? 90.0 : 180.0);
+			int decimals = random.nextInt(4);
+			String dm = CoordinateConverter.format(degrees, STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE, decimals, latitude);
+			assertEquals(dm, degrees, CoordinateConverter.parse(dm), 0.5 / 60.0 / java.lang.Math.pow(10, decimals) + 1e-12);
+			String dms = CoordinateConverter.format(degrees, STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE_SECOND, decimals, latitude);
+			assertEquals(dms, degrees, CoordinateConverter.parse(dms), 0.5 / 3600.0 / java.lang.Math.pow(10, decimals) + 1e-12);
+			String d = CoordinateConverter.format(degrees, STORAGE_FORMAT.COORDINATE_DEGREE, decimals + 3, latitude);
+			assertEquals(d, degrees, CoordinateConverter.parse(d), 0.5 / java.lang.Math.pow(10, decimals + 3) + 1e-12);
+		}
+		assertEquals("49\u00b015'30.0\"N", CoordinateConverter.format(49.2583333333, STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE_SECOND, 1, true));
+		assertEquals("114\u00b030'W", CoordinateConverter.format(-114.5, STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE, 0, false));
+		assertEquals("1\u00b00'0\"E", CoordinateConverter.format(0.99999, STORAGE_FORMAT.COORDINATE_DEGREE_MINUTE_SECOND, 0, false));
+	}
+
+	@Test
+	public void testParse() {
+		assertEquals(49.5, CoordinateConverter.parse("49 30 N"), 1e-12);
+		assertEquals(-49.5, CoordinateConverter.parse("S 49 30"), 1e-12);
+		assertEquals(-114.50416666666666, CoordinateConverter.parse("-114:30:15"), 1e-12);
+		assertEquals(-114.50416666666666, CoordinateConverter.parse("W 114d 30m 15s"), 1e-12);
+		assertEquals(49.2625, CoordinateConverter.parse("49\u00b015.75'"), 1e-12);
+		assertEquals(49.25, CoordinateConverter.parse("49.25"), 0.0);
+
+		String[] invalid = { "", " ", "N", "-49 S", "+49 N", "49 N S", "49 75", "49 15 90", "49 15 60",
+			"49.5 15", "49 15.5 30", "1e5", "49 e", "49 n", "49 N 15", "49 15 N 30", "49 15 30 10", "49..5", "49x" };
+		for (String s : invalid)
+			assertTrue(s, Double.isNaN(CoordinateConverter.parse(s)));
+	}
+
+	@Test
+	public void testPackRoundTrip() {
+		Random random = new Random(17);
+		for (int i = 0; i < 10000; i++) {
+			double degrees = (random.nextDouble() * 2.0 - 1.0) * 180.0;
+			assertEquals(degrees, CoordinateConverter.unpackDegreeMinute(CoordinateConverter.packDegreeMinute(degrees)), 1e-9);
+			assertEquals(degrees, CoordinateConverter.unpackDegreeMinuteSecond(CoordinateConverter.packDegreeMinuteSecond(degrees)), 1e-9);
+		}
+		assertEquals(4915.5, CoordinateConverter.packDegreeMinute(49.2583333333333), 1e-9);
+	}
+
+	@Test
+	public void testUtmRoundTrip() {
+		Random random = new Random(19);
+		int n = 1000;
+		double[] lon = new double[n], lat = new double[n];
+		for (int i = 0; i < n; i++) {
+			lon[i] = -120.0 + random.nextDouble() * 6.0;
+			lat[i] = 40.0 + random.nextDouble() * 20.0;
+		}
+		CoordinateConverter converter = CoordinateConverter.forLocation(-115.0, 50.0);
+		assertEquals(11, converter.getZone());
+		double[] x = new double[n], y = new double[n];
+		converter.toUtm(lon, lat, 0, x, y, 0, n);
+		//the central meridian is projected to the false easting
+		double[] cx = { -117.0 }, cy = { 0.0 };
+		converter.convert(cx, cy, STORAGE_FORMAT.COORDINATE_UTM, STORAGE_FORMAT.COORDINATE_DEGREE);
+		assertEquals(500000.0, cx[0], 1e-6);
+		assertEquals(0.0, cy[0], 1e-6);
+
+		converter.toDegrees(x, y, 0, x, y, 0, n);
+		for (int i = 0; i < n; i++) {
+			assertEquals(lon[i], x[i], 1e-9);
+			assertEquals(lat[i], y[i], 1e-9);
+		}
+	}
+}
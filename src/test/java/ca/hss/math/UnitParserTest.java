@@ -0,0 +1,72 @@
+/**
+ * UnitParserTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * Registers labels with {@link UnitParser} and parses them back. Every label is unique to
+ * this test so the built-in labels aren't affected.
+ */
+public class UnitParserTest {
+	@Test
+	public void testBuiltInLabels() {
+		assertEquals(STORAGE_FORMAT.KM, UnitParser.parse("km"));
+		assertEquals(STORAGE_FORMAT.MM, UnitParser.parse(" mm "));
+		assertEquals(STORAGE_FORMAT.KM | STORAGE_FORMAT.HOUR | STORAGE_FORMAT.TIME_DIV, UnitParser.parse("km/h"));
+		assertEquals(UnitParser.UNKNOWN, UnitParser.parse("KM"));
+		assertEquals(UnitParser.UNKNOWN, UnitParser.parse(""));
+	}
+
+	@Test
+	public void testRegisterRoundTrip() {
+		UnitParser.register(" round trip unit ", STORAGE_FORMAT.M);
+		assertEquals(STORAGE_FORMAT.M, UnitParser.parse("round trip unit"));
+		UnitParser.register("round trip unit", STORAGE_FORMAT.KM);
+		assertEquals(STORAGE_FORMAT.KM, UnitParser.parse("round trip unit"));
+
+		Map<String, Long> labels = new LinkedHashMap<>();
+		for (int i = 0; i < 5000; i++)
+			labels.put("batch unit " + i, i % 2 == 0 ? STORAGE_FORMAT.MM : STORAGE_FORMAT.KM);
+		UnitParser.register(labels);
+		for (Map.Entry<String, Long> e : labels.entrySet())
+			assertEquals(e.getKey(), e.getValue().longValue(), UnitParser.parse(e.getKey()));
+		StringBuilder sb = new StringBuilder("xxbatch unit 17yy");
+		assertEquals(STORAGE_FORMAT.KM, UnitParser.parse(sb, 2, sb.length() - 2));
+
+		//registering doesn't lose the built-in labels
+		assertEquals(STORAGE_FORMAT.KM, UnitParser.parse("km"));
+		assertEquals(STORAGE_FORMAT.CELSIUS, UnitParser.parse("\u00b0C"));
+	}
+
+	@Test
+	public void testRegisterInvalidatesCompounds() {
+		String label = "cached unit/h";
+		assertEquals(UnitParser.UNKNOWN, UnitParser.parse(label));
+		UnitParser.register("cached unit", STORAGE_FORMAT.KM);
+		assertEquals(STORAGE_FORMAT.KM | STORAGE_FORMAT.HOUR | STORAGE_FORMAT.TIME_DIV, UnitParser.parse(label));
+	}
+}
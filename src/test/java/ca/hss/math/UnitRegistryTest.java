@@ -0,0 +1,78 @@
+/**
+ * UnitRegistryTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * The registry can only be frozen once, so everything that depends on freezing it is
+ * checked by a single test.
+ */
+public class UnitRegistryTest {
+	@Test
+	public void testFreezeWhileConverting() throws InterruptedException {
+		UnitRegistry.Category category = UnitRegistry.category("registry test load");
+		final long light = category.unit(1.0, "registry test light");
+		final long heavy = category.unit(4.0, "registry test heavy");
+		final long offset = category.unit(2.0, 10.0, "registry test offset");
+
+		//unknown until the registry is frozen, so the value passes through
+		assertEquals(5.0, Convert.convertUnit(5.0, light, heavy), 0.0);
+		assertEquals(UnitParser.UNKNOWN, UnitParser.parse("registry test heavy"));
+
+		//keep resolving the plan from other threads while the registry is frozen, a plan
+		//resolved before the tables were built mustn't be used afterwards
+		final AtomicBoolean stop = new AtomicBoolean();
+		final CountDownLatch started = new CountDownLatch(4);
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				started.countDown();
+				while (!stop.get()) {
+					Convert.clearPlans();
+					Convert.plan(light, heavy);
+				}
+			});
+			threads[i].start();
+		}
+		started.await();
+		Thread.sleep(20);
+		UnitRegistry.freeze();
+		stop.set(true);
+		for (Thread thread : threads)
+			thread.join();
+
+		assertTrue(UnitRegistry.isFrozen());
+		assertEquals(20.0, Convert.convertUnit(5.0, light, heavy), 0.0);
+		assertEquals(1.25, Convert.convertUnit(5.0, heavy, light), 0.0);
+		assertEquals(30.0, Convert.convertUnit(10.0, light, offset), 0.0);
+		assertEquals(10.0, Convert.convertUnit(30.0, offset, light), 0.0);
+		assertEquals(20.0 / 60.0, Convert.convertUnit(5.0, light | STORAGE_FORMAT.TIME_DIV | STORAGE_FORMAT.MINUTE,
+				heavy | STORAGE_FORMAT.TIME_DIV | STORAGE_FORMAT.HOUR), 1e-15);
+		assertEquals(heavy, UnitParser.parse("registry test heavy"));
+	}
+}
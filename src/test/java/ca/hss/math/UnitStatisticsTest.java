@@ -0,0 +1,114 @@
+/**
+ * UnitStatisticsTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * Compares {@link UnitStatistics} to statistics of values that were converted one at a time.
+ */
+public class UnitStatisticsTest {
+	@Test
+	public void testNaNIgnoredByRange() {
+		double[] values = { 1.0, Double.NaN, 3.0 };
+		UnitStatistics bulk = UnitStatistics.of(values, STORAGE_FORMAT.M);
+		UnitStatistics single = new UnitStatistics(STORAGE_FORMAT.M);
+		for (double value : values)
+			single.accept(value);
+		UnitStatistics combined = UnitStatistics.of(values, 0, 2, STORAGE_FORMAT.M)
+				.combine(UnitStatistics.of(values, 2, 1, STORAGE_FORMAT.M));
+		UnitStatistics converted = UnitStatistics.of(values, 2, 1, STORAGE_FORMAT.M)
+				.combine(UnitStatistics.of(values, 0, 2, STORAGE_FORMAT.M))
+				.combine(UnitStatistics.of(new double[] { Double.NaN }, STORAGE_FORMAT.KM));
+		for (UnitStatistics s : new UnitStatistics[] { bulk, single, combined, converted }) {
+			assertEquals(s.toString(), 1.0, s.getMin(), 0.0);
+			assertEquals(s.toString(), 3.0, s.getMax(), 0.0);
+			assertTrue(s.toString(), Double.isNaN(s.getSum()));
+		}
+		assertEquals(3, bulk.getCount());
+		assertEquals(4, converted.getCount());
+	}
+
+	@Test
+	public void testConvertedResults() {
+		Random random = new Random(23);
+		double[] values = new double[1000];
+		for (int i = 0; i < values.length; i++)
+			values[i] = random.nextDouble() * 100.0 - 20.0;
+		checkConverted(values, STORAGE_FORMAT.FAHRENHEIT, STORAGE_FORMAT.CELSIUS);
+		checkConverted(values, STORAGE_FORMAT.KM, STORAGE_FORMAT.M);
+		//a negative scale swaps the minimum and maximum
+		checkConverted(values, STORAGE_FORMAT.PERCENT_INVERT, STORAGE_FORMAT.PERCENT);
+	}
+
+	@Test
+	public void testCombineFormats() {
+		UnitStatistics metres = UnitStatistics.of(new double[] { 500.0, 2500.0 }, STORAGE_FORMAT.M);
+		UnitStatistics km = UnitStatistics.of(new double[] { 1.0, 4.0 }, STORAGE_FORMAT.KM);
+		metres.combine(km);
+		assertEquals(4, metres.getCount());
+		assertEquals(8000.0, metres.getSum(), 1e-9);
+		assertEquals(500.0, metres.getMin(), 0.0);
+		assertEquals(4000.0, metres.getMax(), 0.0);
+		assertEquals(2.0, metres.getAverage(STORAGE_FORMAT.KM), 1e-12);
+	}
+
+	@Test
+	public void testParallel() {
+		Random random = new Random(29);
+		double[] values = new double[200000];
+		for (int i = 0; i < values.length; i++)
+			values[i] = random.nextGaussian();
+		values[12345] = Double.NaN;
+		UnitStatistics parallel = UnitStatistics.of(values, STORAGE_FORMAT.M, new ParallelConverter());
+		UnitStatistics serial = UnitStatistics.of(values, STORAGE_FORMAT.M);
+		assertEquals(serial.getCount(), parallel.getCount());
+		assertEquals(serial.getMin(), parallel.getMin(), 0.0);
+		assertEquals(serial.getMax(), parallel.getMax(), 0.0);
+		assertTrue(Double.isNaN(parallel.getSum()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompassRejected() {
+		UnitStatistics.of(new double[] { 1.0 }, STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.COMPASS | STORAGE_FORMAT.DEGREE)
+				.getSum(STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.CARTESIAN | STORAGE_FORMAT.DEGREE);
+	}
+
+	private static void checkConverted(double[] values, long to_format, long from_format) {
+		UnitStatistics s = UnitStatistics.of(values, from_format);
+		double sum = 0.0, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		for (double value : values) {
+			double converted = Convert.convertUnit(value, to_format, from_format);
+			sum += converted;
+			min = java.lang.Math.min(min, converted);
+			max = java.lang.Math.max(max, converted);
+		}
+		assertEquals(sum, s.getSum(to_format), 1e-9 * java.lang.Math.abs(sum));
+		assertEquals(sum / values.length, s.getAverage(to_format), 1e-9);
+		assertEquals(min, s.getMin(to_format), 1e-9);
+		assertEquals(max, s.getMax(to_format), 1e-9);
+	}
+}
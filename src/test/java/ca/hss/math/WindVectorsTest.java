@@ -0,0 +1,114 @@
+/**
+ * WindVectorsTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.hss.math.Convert.STORAGE_FORMAT;
+
+/**
+ * Splits winds into components with {@link WindVectors} and puts them back together.
+ */
+public class WindVectorsTest {
+	private static final long COMPASS_DEGREE = STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.COMPASS | STORAGE_FORMAT.DEGREE;
+	private static final long[] FORMATS = { COMPASS_DEGREE, STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.DEGREE, STORAGE_FORMAT.ANGLE,
+		STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.COMPASS | STORAGE_FORMAT.RADIAN };
+
+	@Test
+	public void testKnownComponents() {
+		double[] u = new double[2], v = new double[2];
+		new WindVectors(COMPASS_DEGREE, false, false).decompose(new double[] { 10.0, 4.0 }, new double[] { 90.0, 180.0 }, u, v);
+		assertArrayEquals(new double[] { 10.0, 0.0 }, u, 1e-12);
+		assertArrayEquals(new double[] { 0.0, -4.0 }, v, 1e-12);
+		//a meteorological direction is where the wind comes from
+		new WindVectors(COMPASS_DEGREE, true, false).decompose(new double[] { 10.0, 4.0 }, new double[] { 90.0, 180.0 }, u, v);
+		assertArrayEquals(new double[] { -10.0, 0.0 }, u, 1e-12);
+		assertArrayEquals(new double[] { 0.0, 4.0 }, v, 1e-12);
+		new WindVectors(STORAGE_FORMAT.ANGLE | STORAGE_FORMAT.DEGREE, false, false).decompose(new double[] { 10.0 }, new double[] { 90.0 }, u, v);
+		assertEquals(0.0, u[0], 1e-12);
+		assertEquals(10.0, v[0], 1e-12);
+
+		double[] speed = new double[2], direction = new double[2];
+		new WindVectors(COMPASS_DEGREE, true, false).recompose(new double[] { 0.0, -3.0 }, new double[] { 0.0, 0.0 }, speed, direction);
+		assertArrayEquals(new double[] { 0.0, 3.0 }, speed, 0.0);
+		assertArrayEquals(new double[] { 0.0, 90.0 }, direction, 1e-12);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Random random = new Random(41);
+		int n = 20000;
+		for (long format : FORMATS) {
+			double turn = Convert.convertUnit(2.0 * java.lang.Math.PI, format & ~STORAGE_FORMAT.ANGLE_ROTATION_MASK, STORAGE_FORMAT.ANGLE);
+			for (boolean meteorological : new boolean[] { false, true }) {
+				double[] speed = new double[n], direction = new double[n];
+				for (int i = 0; i < n; i++) {
+					speed[i] = random.nextDouble() * 50.0 + 0.1;
+					direction[i] = random.nextDouble() * turn;
+				}
+				WindVectors exact = new WindVectors(format, meteorological, false);
+				WindVectors fast = new WindVectors(format, meteorological, true);
+				double[] u = new double[n], v = new double[n], fu = new double[n], fv = new double[n];
+				exact.decompose(speed, direction, u, v);
+				fast.decompose(speed, direction, fu, fv, new ParallelConverter());
+				for (int i = 0; i < n; i++) {
+					assertEquals(u[i], fu[i], 3e-7 * speed[i]);
+					assertEquals(v[i], fv[i], 3e-7 * speed[i]);
+				}
+
+				for (WindVectors vectors : new WindVectors[] { exact, fast }) {
+					double[] s = new double[n], d = new double[n];
+					vectors.recompose(u, v, s, d);
+					for (int i = 0; i < n; i++) {
+						assertEquals(speed[i], s[i], 1e-12 * speed[i]);
+						double diff = java.lang.Math.abs(d[i] - direction[i]);
+						assertEquals(0.0, java.lang.Math.min(diff, turn - diff) / turn * 2.0 * java.lang.Math.PI, 1e-8);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testParallelMatchesSerial() {
+		Random random = new Random(43);
+		int n = ParallelConverter.DEFAULT_THRESHOLD * 2 + 5;
+		double[] speed = new double[n], direction = new double[n];
+		for (int i = 0; i < n; i++) {
+			speed[i] = random.nextDouble() * 30.0;
+			direction[i] = random.nextDouble() * 360.0;
+		}
+		WindVectors vectors = new WindVectors(COMPASS_DEGREE, true, false);
+		double[] u = new double[n], v = new double[n], pu = new double[n], pv = new double[n];
+		vectors.decompose(speed, direction, u, v);
+		vectors.decompose(speed, direction, pu, pv, new ParallelConverter());
+		assertArrayEquals(u, pu, 0.0);
+		assertArrayEquals(v, pv, 0.0);
+		double[] s = new double[n], d = new double[n], ps = new double[n], pd = new double[n];
+		vectors.recompose(u, v, s, d);
+		vectors.recompose(u, v, ps, pd, new ParallelConverter());
+		assertArrayEquals(s, ps, 0.0);
+		assertArrayEquals(d, pd, 0.0);
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * NumberScannerTest.java
+ *
+ * Copyright 2026 Heartland Software Solutions Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the license at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the LIcense is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ca.hss.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares {@link NumberScanner} to {@link Double#parseDouble(String)} and
+ * {@link Long#parseLong(String)} on edge cases and random text.
+ */
+public class NumberScannerTest {
+	private static final String[] EDGE_CASES = { "", " ", "1", "-1", "+1", "-", "+", ".", "1.", ".5", "-.5",
+		"1e", "1e+", "1e-3", "1E3", "1.5f", "1.5D", "1.5x", "NaN", "-NaN", "Infinity", "-Infinity", "Inf",
+		"nan", "0x1p3", "-0x1.8p1", "0x", " 12.5 \t", "1 2", "00000.000001", "-0", "-0.0", "9007199254740993",
+		"123456789012345678901234567890", "0.1234567890123456789", "1e400", "1e-400", "4.9e-324",
+		"1.7976931348623157e308", "1e22", "1e23", "123e-22", "9223372036854775807", "9223372036854775808",
+		"-9223372036854775808", "-9223372036854775809", "2147483647", "2147483648", "-2147483648",
+		"1_000", "1,5", "e5", ".e5", "1.5e5f", "1.5fd" };
+
+	private final NumberScanner scanner = new NumberScanner();
+
+	@Test
+	public void testEdgeCases() {
+		for (String s : EDGE_CASES) {
+			checkDouble(s);
+			checkLong(s);
+		}
+	}
+
+	@Test
+	public void testRandomText() {
+		Random random = new Random(3);
+		String alphabet = "0123456789.-+eEfdNI x";
+		StringBuilder sb = new StringBuilder();
+		for (int k = 0; k < 200000; k++) {
+			sb.setLength(0);
+			int n = random.nextInt(8);
+			for (int i = 0; i < n; i++)
+				sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			checkDouble(sb.toString());
+			checkLong(sb.toString());
+		}
+	}
+
+	@Test
+	public void testRandomValues() {
+		Random random = new Random(5);
+		for (int k = 0; k < 100000; k++) {
+			checkDouble(Double.toString(Double.longBitsToDouble(random.nextLong())));
+			checkDouble(String.format("%." + random.nextInt(8) + "f", random.nextDouble() * Math.pow(10, random.nextInt(12) - 4)));
+			checkLong(Long.toString(random.nextLong() >> random.nextInt(64)));
+		}
+	}
+
+	@Test
+	public void testParsePrefix() {
+		checkParse("12.75 13", '.', 5, 12.75);
+		checkParse("3,25;", ',', 4, 3.25);
+		checkParse("1e5x", '.', 3, 1e5);
+		checkParse("1e", '.', 1, 1.0);
+		checkParse("-Infinity;", '.', 9, Double.NEGATIVE_INFINITY);
+		checkParse("12345678901234567890.5 ", '.', 22, 12345678901234567890.5);
+		checkParse("x1", '.', 0, 0.0);
+		checkParse("", '.', 0, 0.0);
+
+		byte[] bytes = "-9223372036854775808 9223372036854775808".getBytes(StandardCharsets.ISO_8859_1);
+		assertEquals(20, scanner.parseLong(bytes, 0, bytes.length));
+		assertEquals(Long.MIN_VALUE, scanner.getLong());
+		assertEquals(0, scanner.parseLong(bytes, 21, bytes.length));
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes).flip();
+		assertEquals(20, scanner.parseLong(direct));
+		assertEquals(20, direct.position());
+	}
+
+	@Test
+	public void testFailureKeepsValue() {
+		assertTrue(scanner.scanLong("42"));
+		assertFalse(scanner.scanInt("9999999999"));
+		assertFalse(scanner.scanLong("12x"));
+		assertEquals(42, scanner.getLong());
+		assertTrue(scanner.scanDouble("1.5"));
+		assertFalse(scanner.scanDouble("2.5x"));
+		assertFalse(scanner.scanDouble("123456789012345678901x"));
+		assertEquals(1.5, scanner.getDouble(), 0.0);
+	}
+
+	private void checkDouble(String s) {
+		Double expected;
+		try {
+			expected = Double.parseDouble(s);
+		}
+		catch (NumberFormatException e) {
+			expected = null;
+		}
+		assertEquals(s, expected != null, scanner.scanDouble(s));
+		if (expected != null)
+			assertEquals(s, expected, scanner.getDouble(), 0.0);
+		char[] chars = ("##" + s + "#").toCharArray();
+		assertEquals(s, expected != null, scanner.scanDouble(chars, 2, 2 + s.length()));
+		if (expected != null)
+			assertEquals(s, expected, scanner.getDouble(), 0.0);
+		byte[] bytes = ("##" + s + "#").getBytes(StandardCharsets.ISO_8859_1);
+		assertEquals(s, expected != null, scanner.scanDouble(bytes, 2, 2 + s.length()));
+		if (expected != null)
+			assertEquals(s, expected, scanner.getDouble(), 0.0);
+	}
+
+	private void checkLong(String s) {
+		Long expected;
+		try {
+			expected = Long.parseLong(s);
+		}
+		catch (NumberFormatException e) {
+			expected = null;
+		}
+		assertEquals(s, expected != null, scanner.scanLong(s));
+		if (expected != null)
+			assertEquals(s, expected.longValue(), scanner.getLong());
+		assertEquals(s, expected != null, scanner.scanLong(("#" + s).toCharArray(), 1, 1 + s.length()));
+		if (expected != null)
+			assertEquals(s, expected.longValue(), scanner.getLong());
+		byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+		assertEquals(s, expected != null, scanner.scanLong(bytes, 0, bytes.length));
+		if (expected != null)
+			assertEquals(s, expected.longValue(), scanner.getLong());
+		boolean isInt = expected != null && expected.longValue() == (int)expected.longValue();
+		assertEquals(s, isInt, scanner.scanInt(s));
+		if (isInt)
+			assertEquals(s, expected.intValue(), scanner.getInt());
+	}
+
+	private void checkParse(String s, char separator, int length, double expected) {
+		byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+		assertEquals(s, length, scanner.parseDouble(bytes, 0, bytes.length, separator));
+		if (length > 0)
+			assertEquals(s, expected, scanner.getDouble(), 0.0);
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 1);
+		direct.put((byte)'#').put(bytes).flip();
+		direct.position(1);
+		assertEquals(s, length, scanner.parseDouble(direct, separator));
+		assertEquals(s, 1 + length, direct.position());
+		if (length > 0)
+			assertEquals(s, expected, scanner.getDouble(), 0.0);
+	}
+}